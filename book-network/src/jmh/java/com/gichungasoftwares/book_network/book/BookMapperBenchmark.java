@@ -0,0 +1,71 @@
+package com.gichungasoftwares.book_network.book;
+
+import com.gichungasoftwares.book_network.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// per row cost of a book page: rating, owner name and the cover read from disk
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMapperBenchmark {
+
+    // 0 is a book without a cover
+    @Param({"0", "16384", "262144"})
+    private int coverSize;
+
+    private final BookMapper bookMapper = new BookMapper();
+    private Path cover;
+    private Book book;
+
+    @Setup
+    public void setUp() throws IOException {
+        String bookCover = null;
+        if (coverSize > 0) {
+            byte[] content = new byte[coverSize];
+            ThreadLocalRandom.current().nextBytes(content);
+            cover = Files.createTempFile("cover", ".jpg");
+            Files.write(cover, content);
+            bookCover = cover.toString();
+        }
+        book = Book.builder()
+                .id(1)
+                .title("The Benchmark")
+                .authorName("Jay Mh")
+                .isbn("978-0-00-000000-0")
+                .synopsis("A book about measuring things")
+                .isShareable(true)
+                .bookCover(bookCover)
+                .owner(User.builder().firstname("Bench").lastname("Mark").build())
+                .rating(RatingHistogram.builder()
+                        .oneStar(3).twoStars(5).threeStars(20).fourStars(40).fiveStars(32)
+                        .ratingCount(100).ratingSum(393.5)
+                        .build())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (cover != null) {
+            Files.deleteIfExists(cover);
+        }
+    }
+
+    @Benchmark
+    public BookResponse toBookResponse() {
+        return bookMapper.toBookResponse(book);
+    }
+
+    @Benchmark
+    public double getRate() {
+        return book.getRate();
+    }
+}
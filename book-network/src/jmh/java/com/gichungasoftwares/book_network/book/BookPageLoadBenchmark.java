@@ -0,0 +1,96 @@
+package com.gichungasoftwares.book_network.book;
+
+import com.gichungasoftwares.book_network.BookNetworkApiApplication;
+import com.gichungasoftwares.book_network.security.JwtService;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+// GET /books (JWT user load, page query, cover reads) against the whole application on H2, with more
+// concurrent clients than Tomcat threads. Compares platform threads (requests queue for a Tomcat thread)
+// with virtual threads (one per request): -p virtualThreads=false,true
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class BookPageLoadBenchmark {
+
+    private static final int BOOKS = 40;
+    private static final int COVER_SIZE = 64 * 1024;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    // only used by the platform thread mode
+    @Param({"16"})
+    private int tomcatThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest booksPage;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookNetworkApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "logging.level.root=WARN"
+                )
+                .run();
+        TestData testData = context.getAutowireCapableBeanFactory().createBean(TestData.class);
+        BookService bookService = context.getBean(BookService.class);
+        User owner = testData.user("Owner");
+        for (int i = 0; i < BOOKS; i++) {
+            Integer bookId = testData.book(owner, "Load book " + i, "a book read under load");
+            byte[] cover = new byte[COVER_SIZE];
+            ThreadLocalRandom.current().nextBytes(cover);
+            testData.runAs(owner, auth -> {
+                bookService.uploadBookCoverPicture(new MockMultipartFile("file", "cover.jpg", "image/jpeg", cover), auth, bookId);
+                return bookId;
+            });
+        }
+        testData.projectListings();
+        User reader = testData.user("Reader");
+        String token = context.getBean(JwtService.class).generateToken(Map.of("fullName", reader.fullName()), reader);
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        booksPage = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/books?size=20"))
+                .header(AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findAllBooks() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(booksPage, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /books returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
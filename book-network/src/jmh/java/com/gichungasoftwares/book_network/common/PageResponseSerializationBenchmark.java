@@ -0,0 +1,83 @@
+package com.gichungasoftwares.book_network.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.book.RatingHistogramResponse;
+import com.gichungasoftwares.book_network.config.BinaryEncodingConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Body of a book page in each negotiated encoding: JSON (covers base64 encoded by Jackson) against
+// CBOR and Smile (covers as raw bytes). The payload sizes are checked by PageResponseEncodingSizeTest.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Param({"0", "16384"})
+    private int coverSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private PageResponse<BookResponse> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(BinaryEncodingConfig.cborFactory()).filters(FieldSet.serializeAll()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json().factory(BinaryEncodingConfig.smileFactory()).filters(FieldSet.serializeAll()).build();
+            default -> Jackson2ObjectMapperBuilder.json().filters(FieldSet.serializeAll()).build();
+        };
+        List<BookResponse> content = IntStream.range(0, pageSize)
+                .mapToObj(this::book)
+                .toList();
+        page = new PageResponse<>(content, 0, pageSize, 1000L, 1000 / pageSize, true, false);
+        encoded = objectMapper.writeValueAsBytes(page);
+    }
+
+    private BookResponse book(int id) {
+        byte[] cover = null;
+        if (coverSize > 0) {
+            cover = new byte[coverSize];
+            ThreadLocalRandom.current().nextBytes(cover);
+        }
+        return BookResponse.builder()
+                .id(id)
+                .title("Book " + id)
+                .authorName("Author " + id)
+                .isbn("978-0-00-" + id)
+                .synopsis("Synopsis of book " + id)
+                .owner("Bench Mark")
+                .rate(4.0)
+                .ratingHistogram(new RatingHistogramResponse())
+                .shareable(true)
+                .cover(cover)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    // what a client pays to decode the page
+    @Benchmark
+    public PageResponse<BookResponse> readValue() throws Exception {
+        return objectMapper.readValue(encoded, objectMapper.getTypeFactory()
+                .constructParametricType(PageResponse.class, BookResponse.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.gichungasoftwares.book_network.file;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// cover upload, one file per invocation written to a temporary upload folder
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileStorageServiceBenchmark {
+
+    @Param({"1024", "1048576", "10485760", "52428800"})
+    private int fileSize;
+
+    private final FileStorageService fileStorageService = new FileStorageService();
+    private Path uploads;
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploads = Files.createTempDirectory("uploads");
+        ReflectionTestUtils.setField(fileStorageService, "fileUploadPath", uploads.toString());
+        byte[] content = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        file = new MockMultipartFile("file", "cover.jpg", "image/jpeg", content);
+    }
+
+    // keep the disk usage flat between iterations
+    @TearDown(Level.Iteration)
+    public void cleanUploads() throws IOException {
+        try (Stream<Path> files = Files.walk(uploads)) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(uploads))
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        cleanUploads();
+        Files.deleteIfExists(uploads);
+    }
+
+    @Benchmark
+    public String saveFile() {
+        return fileStorageService.saveFile(file, 1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import com.gichungasoftwares.book_network.BookNetworkApiApplication;
+import com.gichungasoftwares.book_network.security.JwtService;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+// GET /books (JPA, a Tomcat thread and a Hikari connection per request for the whole query) against
+// GET /reactive/books (R2DBC, the connection is only held while the rows are read) with 256 concurrent
+// clients and the same small pool on both sides: -p stack=jdbc,reactive -p poolSize=4
+// On H2 the queries take microseconds; for database latency closer to production, point both stacks to
+// Postgres with -jvmArgsAppend "-Dspring.datasource.url=... -Dapplication.reactive.url=r2dbc:postgresql://..."
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class CatalogReadLoadBenchmark {
+
+    private static final int BOOKS = 200;
+
+    @Param({"jdbc", "reactive"})
+    private String stack;
+
+    @Param({"4"})
+    private int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest booksPage;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookNetworkApiApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "application.reactive.enabled=true",
+                        "application.reactive.url=r2dbc:h2:mem:///book_social_network?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "application.reactive.pool.initial-size=" + poolSize,
+                        "application.reactive.pool.max-size=" + poolSize,
+                        "logging.level.root=WARN"
+                )
+                .run();
+        TestData testData = context.getAutowireCapableBeanFactory().createBean(TestData.class);
+        User owner = testData.user("Owner");
+        for (int i = 0; i < BOOKS; i++) {
+            testData.book(owner, "Load book " + i, "a book read under load");
+        }
+        testData.projectListings();
+        User reader = testData.user("Reader");
+        String token = context.getBean(JwtService.class).generateToken(Map.of("fullName", reader.fullName()), reader);
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        String path = stack.equals("reactive") ? "/api/v1/reactive/books" : "/api/v1/books";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        // no covers, the comparison is about waiting on the database
+        booksPage = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path + "?size=50&fields=title,authorName,owner,rate"))
+                .header(AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findAllBooks() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(booksPage, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + booksPage.uri().getPath() + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
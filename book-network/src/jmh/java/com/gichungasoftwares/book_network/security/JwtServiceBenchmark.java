@@ -0,0 +1,53 @@
+package com.gichungasoftwares.book_network.security;
+
+import com.gichungasoftwares.book_network.role.Role;
+import com.gichungasoftwares.book_network.user.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// token work done on every authenticated request by JwtAuthenticationFilter
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "f2bfa532ce2c248ef8b92b1bcf31cad8014bb40e633c01a7a720e5d6474b8f3d");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 8640000L);
+        user = User.builder()
+                .firstname("Bench")
+                .lastname("Mark")
+                .email("bench@mail.com")
+                .roles(List.of(Role.builder().name("USER").build()))
+                .build();
+        token = jwtService.generateToken(Map.of("fullName", user.fullName()), user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(Map.of("fullName", user.fullName()), user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,38 @@
+package com.gichungasoftwares.book_network.user;
+
+import com.gichungasoftwares.book_network.role.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// called by the filter, the JWT builder and every @Secured check
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserAuthoritiesBenchmark {
+
+    @Param({"1", "3", "10"})
+    private int roles;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        List<Role> userRoles = IntStream.range(0, roles)
+                .mapToObj(i -> Role.builder().name("ROLE_" + i).build())
+                .toList();
+        user = User.builder().email("bench@mail.com").roles(userRoles).build();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+}
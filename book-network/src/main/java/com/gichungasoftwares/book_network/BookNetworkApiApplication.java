@@ -1,32 +1,50 @@
 package com.gichungasoftwares.book_network;
 
+import com.gichungasoftwares.book_network.activity.UserActivityRepository;
+import com.gichungasoftwares.book_network.book.BookRepository;
 import com.gichungasoftwares.book_network.role.Role;
 import com.gichungasoftwares.book_network.role.RoleRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 @EnableAsync
+@EnableScheduling
 public class BookNetworkApiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BookNetworkApiApplication.class, args);
+		SpringApplication application = new SpringApplication(BookNetworkApiApplication.class);
+		// startup steps (bean creation, context refresh) are kept for /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 	// Initialize user role when a user record is created
 	@Bean
-	public CommandLineRunner runner(RoleRepository roleRepository) {
+	public CommandLineRunner runner(RoleRepository roleRepository, BookRepository bookRepository, UserActivityRepository activityRepository) {
 		return args -> {
 			if (roleRepository.findByName("USER").isEmpty()) {
 				roleRepository.save(
 						Role.builder().name("USER").build()
 				);
 			}
+			// granted by hand, gives access to the /admin endpoints
+			if (roleRepository.findByName("ADMIN").isEmpty()) {
+				roleRepository.save(
+						Role.builder().name("ADMIN").build()
+				);
+			}
+			// rating counters of books reviewed before the counters were introduced
+			bookRepository.backfillRatingHistograms();
+			// activity counters of users created before the counters were introduced
+			activityRepository.initializeMissing();
 		};
 	}
 
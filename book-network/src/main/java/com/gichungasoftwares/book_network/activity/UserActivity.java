@@ -0,0 +1,32 @@
+package com.gichungasoftwares.book_network.activity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+// Running totals of a user's books and borrows, changed in the transaction of each transition
+// (UserActivityService), so badges and page totals are read from one row instead of counted
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "user_activity")
+public class UserActivity {
+
+    @Id
+    private Integer userId;
+    // books the user owns, archived ones included
+    private long booksOwned;
+    private long archivedBooks;
+    // every borrow of the user, as listed on /books/borrowed
+    private long borrowedBooks;
+    // borrows of the user whose return is not approved yet
+    private long openLoans;
+    // returns of the user's books, as listed on /books/returned
+    private long returnedBooks;
+    // returns of the user's books waiting for the user's approval
+    private long pendingApprovals;
+}
@@ -0,0 +1,7 @@
+package com.gichungasoftwares.book_network.activity;
+
+public interface UserActivityInitializer {
+    int initialize(Integer userId);
+
+    int initializeMissing();
+}
@@ -0,0 +1,60 @@
+package com.gichungasoftwares.book_network.activity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+// Creates the counters row of a user from the tables. The insert does nothing when the row exists,
+// so two transactions creating the same row do not fail: the second one inserts nothing (0).
+// SQL rather than HQL: Hibernate only emulates ON CONFLICT for a single row on the databases without it,
+// Postgres and H2 (PostgreSQL mode) both run it as it is.
+class UserActivityInitializerImpl implements UserActivityInitializer {
+
+    private static final String INSERT_COUNTED = """
+            INSERT INTO user_activity (user_id, books_owned, archived_books, borrowed_books, open_loans, returned_books, pending_approvals)
+            SELECT app_user.user_id,
+                   (SELECT COUNT(*) FROM book WHERE book.owner_id = app_user.user_id),
+                   (SELECT COUNT(*) FROM book WHERE book.owner_id = app_user.user_id AND book.is_archived = true),
+                   (SELECT COUNT(*) FROM book_transaction_history history
+                    WHERE history.user_id = app_user.user_id),
+                   (SELECT COUNT(*) FROM book_transaction_history history
+                    WHERE history.user_id = app_user.user_id AND history.is_return_approved = false),
+                   (SELECT COUNT(*) FROM book_transaction_history history JOIN book ON book.id = history.book_id
+                    WHERE book.created_by = app_user.user_id AND history.is_returned = true),
+                   (SELECT COUNT(*) FROM book_transaction_history history JOIN book ON book.id = history.book_id
+                    WHERE book.created_by = app_user.user_id AND history.is_returned = true AND history.is_return_approved = false)
+            FROM _user app_user
+            WHERE %s
+            ON CONFLICT DO NOTHING
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // counts the pending changes of the calling transaction too
+    @Override
+    @Transactional
+    public int initialize(Integer userId) {
+        entityManager.flush();
+        return insert(INSERT_COUNTED.formatted("app_user.user_id = :userId"))
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    // users created before the counters existed
+    @Override
+    @Transactional
+    public int initializeMissing() {
+        return insert(INSERT_COUNTED.formatted(
+                        "NOT EXISTS (SELECT 1 FROM user_activity activity WHERE activity.user_id = app_user.user_id)"))
+                .executeUpdate();
+    }
+
+    // only user_activity is written, the second level cache regions of the other entities are kept
+    private NativeQuery<?> insert(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(UserActivity.class);
+    }
+}
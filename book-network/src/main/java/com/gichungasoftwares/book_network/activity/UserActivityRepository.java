@@ -0,0 +1,60 @@
+package com.gichungasoftwares.book_network.activity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+// Each update returns 0 when the user has no counters row yet, see UserActivityService
+public interface UserActivityRepository extends JpaRepository<UserActivity, Integer>, UserActivityInitializer {
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.booksOwned = activity.booksOwned + 1
+           WHERE activity.userId = :userId
+           """)
+    int addOwnedBook(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.archivedBooks = activity.archivedBooks + :delta
+           WHERE activity.userId = :userId
+           """)
+    int addArchivedBooks(@Param("userId") Integer userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.borrowedBooks = activity.borrowedBooks + 1,
+               activity.openLoans = activity.openLoans + 1
+           WHERE activity.userId = :userId
+           """)
+    int addBorrow(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.returnedBooks = activity.returnedBooks + 1,
+               activity.pendingApprovals = activity.pendingApprovals + 1
+           WHERE activity.userId = :userId
+           """)
+    int addReturn(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.pendingApprovals = activity.pendingApprovals - 1
+           WHERE activity.userId = :userId
+           """)
+    int removePendingApproval(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query("""
+           UPDATE UserActivity activity
+           SET activity.openLoans = activity.openLoans - 1
+           WHERE activity.userId = :userId
+           """)
+    int closeLoan(@Param("userId") Integer userId);
+}
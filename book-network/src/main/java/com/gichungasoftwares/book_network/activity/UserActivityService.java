@@ -0,0 +1,98 @@
+package com.gichungasoftwares.book_network.activity;
+
+import com.gichungasoftwares.book_network.book.BookRepository;
+import com.gichungasoftwares.book_network.history.BookTransactionHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.ToIntFunction;
+
+// The per-user counters. Every transition of BookService moves them in its own transaction, so they
+// commit or roll back with the change they count; the updates are relative, concurrent transitions
+// of the same user do not overwrite each other.
+// A user without a row (created outside registration) gets one counted from the tables on its first
+// transition; until then the reads fall back to the COUNT queries.
+@Service
+@RequiredArgsConstructor
+public class UserActivityService {
+
+    private final UserActivityRepository activityRepository;
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository transactionHistoryRepository;
+
+    public void userRegistered(Integer userId) {
+        activityRepository.initialize(userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookSaved(Integer ownerId) {
+        apply(ownerId, activityRepository::addOwnedBook);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void archivedStatusChanged(Integer ownerId, boolean archived) {
+        apply(ownerId, userId -> activityRepository.addArchivedBooks(userId, archived ? 1 : -1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookBorrowed(Integer borrowerId) {
+        apply(borrowerId, activityRepository::addBorrow);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookReturned(Integer ownerId) {
+        apply(ownerId, activityRepository::addReturn);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void returnApproved(Integer ownerId, Integer borrowerId) {
+        apply(ownerId, activityRepository::removePendingApproval);
+        apply(borrowerId, activityRepository::closeLoan);
+    }
+
+    private void apply(Integer userId, ToIntFunction<Integer> update) {
+        // the row counted from the tables includes this transition already
+        if (update.applyAsInt(userId) == 0 && activityRepository.initialize(userId) == 0) {
+            // created meanwhile by another transaction, which could not see this transition
+            update.applyAsInt(userId);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public UserActivity counters(Integer userId) {
+        return activityRepository.findById(userId)
+                .orElseGet(() -> UserActivity.builder()
+                        .userId(userId)
+                        .booksOwned(bookRepository.countAllByOwner(userId))
+                        .archivedBooks(bookRepository.countAllArchivedByOwner(userId))
+                        .borrowedBooks(transactionHistoryRepository.countAllBorrowedBooks(userId))
+                        .openLoans(transactionHistoryRepository.countOpenLoans(userId))
+                        .returnedBooks(transactionHistoryRepository.countAllReturnedBooks(userId))
+                        .pendingApprovals(transactionHistoryRepository.countPendingApprovals(userId))
+                        .build());
+    }
+
+    // the page totals read a single counter, falling back to the one COUNT query it replaces
+    @Transactional(readOnly = true)
+    public long booksOwned(Integer userId) {
+        return activityRepository.findById(userId)
+                .map(UserActivity::getBooksOwned)
+                .orElseGet(() -> bookRepository.countAllByOwner(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public long borrowedBooks(Integer userId) {
+        return activityRepository.findById(userId)
+                .map(UserActivity::getBorrowedBooks)
+                .orElseGet(() -> transactionHistoryRepository.countAllBorrowedBooks(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public long returnedBooks(Integer userId) {
+        return activityRepository.findById(userId)
+                .map(UserActivity::getReturnedBooks)
+                .orElseGet(() -> transactionHistoryRepository.countAllReturnedBooks(userId));
+    }
+}
@@ -1,11 +1,14 @@
 package com.gichungasoftwares.book_network.auth;
 
+import com.gichungasoftwares.book_network.activity.UserActivityService;
+import com.gichungasoftwares.book_network.cache.CacheInvalidationBus;
 import com.gichungasoftwares.book_network.role.RoleRepository;
 import com.gichungasoftwares.book_network.security.JwtService;
 import com.gichungasoftwares.book_network.user.Token;
 import com.gichungasoftwares.book_network.user.TokenRepository;
 import com.gichungasoftwares.book_network.user.User;
 import com.gichungasoftwares.book_network.user.UserRepository;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +25,7 @@ import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Observed(name = "auth.service")
 public class AuthenticationService {
 
     private final RoleRepository roleRepository;
@@ -31,6 +35,8 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final UserActivityService userActivityService;
+    private final CacheInvalidationBus cacheInvalidationBus;
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
     @Value("${application.account.activation.token.expiration}")
@@ -61,6 +67,9 @@ public class AuthenticationService {
 
         // save the user
         userRepository.save(user);
+        // its activity counters start at zero
+        userActivityService.userRegistered(user.getUser_id());
+        cacheInvalidationBus.userChanged(user.getUser_id());
 
         // send verification email to the saved user
         sendValidationEmail(user);
@@ -146,6 +155,7 @@ public class AuthenticationService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         user.setEnabled(true);
         userRepository.save(user);
+        cacheInvalidationBus.userChanged(user.getUser_id());
         savedToken.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(savedToken);
     }
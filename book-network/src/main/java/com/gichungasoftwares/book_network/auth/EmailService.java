@@ -1,5 +1,7 @@
 package com.gichungasoftwares.book_network.auth;
 
+import com.gichungasoftwares.book_network.diagnostics.EmailSendEvent;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +26,9 @@ public class EmailService {
     private final JavaMailSender mailSender;
     private final SpringTemplateEngine templateEngine;
 
+    // runs on the @Async executor thread, in the trace of the request that registered the user
     @Async
+    @Observed(name = "email.send")
     public void sendEmail(
             String to,
             String username,
@@ -33,6 +37,8 @@ public class EmailService {
             String activationCode,
             String subject
     ) throws MessagingException {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
         String templateName;
         if(emailTemplate == null) {
             templateName = "confirm_email";
@@ -67,7 +73,13 @@ public class EmailService {
 
         helper.setText(template, true);
 
-        mailSender.send(mimeMessage);
+        boolean sent = false;
+        try {
+            mailSender.send(mimeMessage);
+            sent = true;
+        } finally {
+            event.complete(templateName, sent);
+        }
 
     }
 }
@@ -7,6 +7,8 @@ import com.gichungasoftwares.book_network.user.User;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -16,6 +18,9 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book") // the rating bulk update evicts the region
+@Table(indexes = @Index(name = "idx_book_cover", columnList = "book_cover"))
 public class Book extends BaseEntity {
 
     private String title;
@@ -26,7 +31,11 @@ public class Book extends BaseEntity {
     private boolean isArchived;
     private boolean isShareable;
 
-    @ManyToOne
+    @Embedded
+    @Builder.Default
+    private RatingHistogram rating = new RatingHistogram();
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
@@ -38,13 +47,11 @@ public class Book extends BaseEntity {
 
     @Transient
     public double getRate() {
-        if (feedbacks == null || feedbacks.isEmpty()) {
+        // read from the maintained counters instead of loading every feedback
+        if (rating == null || rating.getRatingCount() == 0) {
             return 0.0;
         }
-        var rate = this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
+        var rate = rating.average();
 
         // Return 4.0 if roundedRate is less than 4.5, otherwise return 4.5
         return Math.round(rate * 10.0) / 10.0;
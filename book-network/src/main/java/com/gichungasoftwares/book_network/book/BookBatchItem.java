@@ -0,0 +1,15 @@
+package com.gichungasoftwares.book_network.book;
+
+import lombok.*;
+
+// one requested id of a multi-get, in request order; book is null when the id was not found
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchItem {
+    private Integer id;
+    private boolean found;
+    private BookResponse book;
+}
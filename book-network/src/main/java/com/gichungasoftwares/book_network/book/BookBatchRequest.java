@@ -0,0 +1,13 @@
+package com.gichungasoftwares.book_network.book;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// ids too many for a query string
+public record BookBatchRequest(
+        @NotEmpty(message = "104")
+        List<@NotNull(message = "104") Integer> ids
+) {
+}
@@ -1,14 +1,21 @@
 package com.gichungasoftwares.book_network.book;
 
+import com.gichungasoftwares.book_network.common.FieldSet;
 import com.gichungasoftwares.book_network.common.PageResponse;
+import com.gichungasoftwares.book_network.common.PageResponseStreamer;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -27,9 +34,56 @@ public class BookController {
 
     @GetMapping("{book-id}")
     public ResponseEntity<BookResponse> findBookById(
-            @PathVariable("book-id") Integer bookId
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return ResponseEntity.ok(bookService.findById(bookId, FieldSet.parse(fields)));
+    }
+
+    // several books by id in one call, e.g. ?ids=1,2,3
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookBatchItem>> findBooksByIds(
+            @RequestParam(name = "ids") List<Integer> bookIds,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return ResponseEntity.ok(bookService.findAllByIds(bookIds, FieldSet.parse(fields)));
+    }
+
+    // same as findBooksByIds for lists too long for a query string
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookBatchItem>> findBooksByIdsInBody(
+            @Valid @RequestBody BookBatchRequest request,
+            @RequestParam(name = "fields", required = false) String fields
     ) {
-        return ResponseEntity.ok(bookService.findById(bookId));
+        return ResponseEntity.ok(bookService.findAllByIds(request.ids(), FieldSet.parse(fields)));
+    }
+
+    // books borrowed together with this one
+    @GetMapping("{book-id}/related")
+    public ResponseEntity<List<BookResponse>> findRelatedBooks(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return ResponseEntity.ok(bookService.findRelatedBooks(bookId, size, FieldSet.parse(fields)));
+    }
+
+    // books with similar content to this one
+    @GetMapping("{book-id}/similar")
+    public ResponseEntity<List<BookResponse>> findSimilarBooks(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return ResponseEntity.ok(bookService.findSimilarBooks(bookId, size, FieldSet.parse(fields)));
+    }
+
+    // best rated displayable books, served from memory: ?fields= only prunes the output
+    @GetMapping("/top")
+    public ResponseEntity<List<TopRatedBookResponse>> findTopRatedBooks(
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity.ok(bookService.findTopRatedBooks(size));
     }
 
     // find all displayable books
@@ -37,9 +91,25 @@ public class BookController {
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllBooks(page, size, FieldSet.parse(fields), connectedUser));
+    }
+
+    // same page as findAllBooks, streamed item by item with ?stream=true
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBooks(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication connectedUser
+    ) {
+        MediaType mediaType = PageResponseStreamer.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(bookService.streamAllBooks(page, size, mediaType, FieldSet.parse(fields), connectedUser));
     }
 
     // fetch all books by the owner
@@ -47,9 +117,24 @@ public class BookController {
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, connectedUser));
+        return ResponseEntity.ok(bookService.findAllBooksByOwner(page, size, FieldSet.parse(fields), connectedUser));
+    }
+
+    @GetMapping(value = "/owner", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBooksByOwner(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            Authentication connectedUser
+    ) {
+        MediaType mediaType = PageResponseStreamer.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(bookService.streamAllBooksByOwner(page, size, mediaType, FieldSet.parse(fields), connectedUser));
     }
 
     // find all borrowed books
@@ -57,9 +142,24 @@ public class BookController {
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.findAllBorrowedBooks(page, size, FieldSet.parse(fields), connectedUser));
+    }
+
+    @GetMapping(value = "/borrowed", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllBorrowedBooks(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllBorrowedBooks(page, size, connectedUser));
+        MediaType mediaType = PageResponseStreamer.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(bookService.streamAllBorrowedBooks(page, size, mediaType, FieldSet.parse(fields), connectedUser));
     }
 
     // find all borrowed books
@@ -67,9 +167,24 @@ public class BookController {
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, FieldSet.parse(fields), connectedUser));
+    }
+
+    @GetMapping(value = "/returned", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllReturnedBooks(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, connectedUser));
+        MediaType mediaType = PageResponseStreamer.negotiate(accept);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(bookService.streamAllReturnedBooks(page, size, mediaType, FieldSet.parse(fields), connectedUser));
     }
 
     // update shareable status
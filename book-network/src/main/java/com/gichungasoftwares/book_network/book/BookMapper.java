@@ -1,9 +1,20 @@
 package com.gichungasoftwares.book_network.book;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.diagnostics.CoverIoEvent;
+import com.gichungasoftwares.book_network.file.CoverIoMetrics;
 import com.gichungasoftwares.book_network.file.FileUtils;
 import com.gichungasoftwares.book_network.history.BookTransactionHistory;
+import com.gichungasoftwares.book_network.listing.BookListing;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
 @Service
 public class BookMapper {
     public Book toBook(BookRequest request) {
@@ -19,27 +30,183 @@ public class BookMapper {
     }
 
     public BookResponse toBookResponse(Book book) {
+        return toBookResponse(book, FieldSet.ALL);
+    }
+
+    // no span of its own, a page would open one per row: the page is the BookService span and the cover
+    // file reads, the expensive part, are the book.cover.io metrics; the owner (a lazy load),
+    // the rating and the cover are only worked out when they are asked for
+    public BookResponse toBookResponse(Book book, FieldSet fields) {
         return BookResponse.builder()
                 .id(book.getId())
                 .title(book.getTitle())
                 .authorName(book.getAuthorName())
                 .isbn(book.getIsbn())
                 .synopsis(book.getSynopsis())
-                .rate(book.getRate())
+                .rate(fields.includes("rate") ? book.getRate() : 0)
+                .ratingHistogram(fields.includes("ratingHistogram") ? toRatingHistogramResponse(book.getRating()) : null)
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
-                .owner(book.getOwner().fullName())
-                .cover(FileUtils.readFileFromLocation(book.getBookCover()))
+                .owner(fields.includes("owner") ? book.getOwner().fullName() : null)
+                .cover(fields.includes("cover") ? readCover(book.getId(), book.getBookCover()) : null)
+                .build();
+    }
+
+    // a browse row: every field is a column of book_listing, only the cover is read from its file
+    public BookResponse toBookResponse(BookListing listing, FieldSet fields) {
+        return BookResponse.builder()
+                .id(listing.getBookId())
+                .title(listing.getTitle())
+                .authorName(listing.getAuthorName())
+                .isbn(listing.getIsbn())
+                .synopsis(listing.getSynopsis())
+                .rate(listing.getRate())
+                .ratingHistogram(fields.includes("ratingHistogram") ? toRatingHistogramResponse(listing.getRating()) : null)
+                .archived(listing.isArchived())
+                .shareable(listing.isShareable())
+                .available(listing.isAvailable())
+                .owner(listing.getOwnerName())
+                .cover(fields.includes("cover") ? readCover(listing.getBookId(), listing.getBookCover()) : null)
+                .build();
+    }
+
+    private byte[] readCover(Integer bookId, String bookCover) {
+        if (StringUtils.isBlank(bookCover)) {
+            return null;
+        }
+        CoverIoEvent event = new CoverIoEvent();
+        event.begin();
+        byte[] cover = FileUtils.readFileFromLocation(bookCover);
+        event.complete(CoverIoMetrics.READ, bookId, null, cover == null ? 0 : cover.length, cover != null);
+        return cover;
+    }
+
+    // same fields as BookResponse, but the cover is copied straight from the file (base64 in JSON, raw bytes in CBOR and Smile)
+    public void writeBookResponse(JsonGenerator generator, Book book, FieldSet fields) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", book.getId());
+        if (fields.includes("title")) {
+            generator.writeStringField("title", book.getTitle());
+        }
+        if (fields.includes("authorName")) {
+            generator.writeStringField("authorName", book.getAuthorName());
+        }
+        if (fields.includes("isbn")) {
+            generator.writeStringField("isbn", book.getIsbn());
+        }
+        if (fields.includes("synopsis")) {
+            generator.writeStringField("synopsis", book.getSynopsis());
+        }
+        if (fields.includes("owner")) {
+            generator.writeStringField("owner", book.getOwner().fullName());
+        }
+        if (fields.includes("cover")) {
+            writeCover(generator, book.getId(), book.getBookCover());
+        }
+        if (fields.includes("rate")) {
+            generator.writeNumberField("rate", book.getRate());
+        }
+        if (fields.includes("ratingHistogram")) {
+            generator.writeObjectField("ratingHistogram", toRatingHistogramResponse(book.getRating()));
+        }
+        if (fields.includes("archived")) {
+            generator.writeBooleanField("archived", book.isArchived());
+        }
+        if (fields.includes("shareable")) {
+            generator.writeBooleanField("shareable", book.isShareable());
+        }
+        // only a browse row knows it, the buffered BookResponse writes it as null
+        if (fields.includes("available")) {
+            generator.writeNullField("available");
+        }
+        generator.writeEndObject();
+    }
+
+    // same fields as toBookResponse(BookListing, FieldSet)
+    public void writeBookResponse(JsonGenerator generator, BookListing listing, FieldSet fields) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", listing.getBookId());
+        if (fields.includes("title")) {
+            generator.writeStringField("title", listing.getTitle());
+        }
+        if (fields.includes("authorName")) {
+            generator.writeStringField("authorName", listing.getAuthorName());
+        }
+        if (fields.includes("isbn")) {
+            generator.writeStringField("isbn", listing.getIsbn());
+        }
+        if (fields.includes("synopsis")) {
+            generator.writeStringField("synopsis", listing.getSynopsis());
+        }
+        if (fields.includes("owner")) {
+            generator.writeStringField("owner", listing.getOwnerName());
+        }
+        if (fields.includes("cover")) {
+            writeCover(generator, listing.getBookId(), listing.getBookCover());
+        }
+        if (fields.includes("rate")) {
+            generator.writeNumberField("rate", listing.getRate());
+        }
+        if (fields.includes("ratingHistogram")) {
+            generator.writeObjectField("ratingHistogram", toRatingHistogramResponse(listing.getRating()));
+        }
+        if (fields.includes("archived")) {
+            generator.writeBooleanField("archived", listing.isArchived());
+        }
+        if (fields.includes("shareable")) {
+            generator.writeBooleanField("shareable", listing.isShareable());
+        }
+        if (fields.includes("available")) {
+            generator.writeBooleanField("available", listing.isAvailable());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeCover(JsonGenerator generator, Integer bookId, String bookCover) throws IOException {
+        generator.writeFieldName("cover");
+        try (FileChannel cover = FileUtils.openFileChannel(bookCover)) {
+            if (cover == null) {
+                generator.writeNull();
+            } else {
+                CoverIoEvent event = new CoverIoEvent();
+                event.begin();
+                long size = cover.size();
+                // the reads only, not the writes to the client
+                CoverIoMetrics.TimedInputStream content = new CoverIoMetrics.TimedInputStream(Channels.newInputStream(cover));
+                generator.writeBinary(content, (int) size);
+                CoverIoMetrics.record(CoverIoMetrics.READ, content.nanos(), size, true);
+                event.complete(CoverIoMetrics.READ, bookId, null, size, true);
+            }
+        }
+    }
+
+    public RatingHistogramResponse toRatingHistogramResponse(RatingHistogram rating) {
+        if (rating == null) {
+            return new RatingHistogramResponse();
+        }
+        return RatingHistogramResponse.builder()
+                .oneStar(rating.getOneStar())
+                .twoStars(rating.getTwoStars())
+                .threeStars(rating.getThreeStars())
+                .fourStars(rating.getFourStars())
+                .fiveStars(rating.getFiveStars())
+                .total(rating.getRatingCount())
                 .build();
     }
 
-    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
+    // streamed pages have no response body advice, the filter is applied while writing
+    public void writeBorrowedBookResponse(JsonGenerator generator, BookTransactionHistory history, FieldSet fields) throws IOException {
+        ObjectMapper objectMapper = (ObjectMapper) generator.getCodec();
+        objectMapper.writer(fields.filters()).writeValue(generator, toBorrowedBookResponse(history, fields));
+    }
+
+    public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history, FieldSet fields) {
         return BorrowedBookResponse.builder()
                 .id(history.getBook().getId())
                 .title(history.getBook().getTitle())
                 .authorName(history.getBook().getAuthorName())
                 .isbn(history.getBook().getIsbn())
-                .rate(history.getBook().getRate())
+                .rate(fields.includes("rate") ? history.getBook().getRate() : 0)
                 .returned(history.isReturned())
                 .returnApproved(history.isReturnApproved())
                 .build();
@@ -1,20 +1,131 @@
 package com.gichungasoftwares.book_network.book;
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
 
+    // the total comes from the owner's counters (UserActivityService), not from a COUNT query
+    @Query("""
+           SELECT book
+           FROM Book book
+           WHERE book.owner.user_id = :ownerId
+           """)
+    List<Book> findAllByOwner(Pageable pageable, Integer ownerId);
+
+    @Query("""
+           SELECT book
+           FROM Book book
+           JOIN FETCH book.owner
+           WHERE book.owner.user_id = :ownerId
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "50"))
+    Stream<Book> streamAllByOwner(Pageable pageable, Integer ownerId);
+
     @Query("""
            SELECT book
            FROM Book book
+           WHERE book.owner.user_id = :ownerId
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "50"))
+    Stream<Book> streamAllByOwnerWithoutOwnerFetch(Pageable pageable, Integer ownerId);
+
+    @Query("""
+           SELECT COUNT(book)
+           FROM Book book
+           WHERE book.owner.user_id = :ownerId
+           """)
+    long countAllByOwner(Integer ownerId);
+
+    @Query("""
+           SELECT COUNT(book)
+           FROM Book book
+           WHERE book.owner.user_id = :ownerId
+           AND book.isArchived = true
+           """)
+    long countAllArchivedByOwner(Integer ownerId);
+
+    @Query("""
+           SELECT book.bookCover
+           FROM Book book
+           WHERE book.bookCover LIKE :pattern ESCAPE '\\'
+           """)
+    List<String> findAllCoversLike(String pattern);
+
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.book.RatedBook(
+               book.id, book.title, book.authorName, book.rating.ratingCount, book.rating.ratingSum
+           )
+           FROM Book book
            WHERE book.isArchived = false
            AND book.isShareable = true
-           AND book.createdBy != :userId
-           
-    """)
-    Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+           AND book.rating.ratingCount > 0
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<RatedBook> streamAllRatedDisplayableBooks();
+
+    // a query rather than findById: until the transaction completes, the second level cache still holds
+    // the book as it was before a rating bulk update of the same transaction
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.book.RatedBook(
+               book.id, book.title, book.authorName, book.rating.ratingCount, book.rating.ratingSum
+           )
+           FROM Book book
+           WHERE book.id = :bookId
+           """)
+    Optional<RatedBook> findRatedBookById(Integer bookId);
+
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.book.BookText(
+               book.id, book.title, book.authorName, book.synopsis
+           )
+           FROM Book book
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<BookText> streamAllBookTexts();
+
+    // flush first: the pending feedback insert would otherwise be dropped by the clear
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           UPDATE Book book
+           SET book.rating.ratingCount = book.rating.ratingCount + 1,
+               book.rating.ratingSum = book.rating.ratingSum + CAST(:note AS double),
+               book.rating.oneStar = book.rating.oneStar + CASE WHEN :stars = 1 THEN 1 ELSE 0 END,
+               book.rating.twoStars = book.rating.twoStars + CASE WHEN :stars = 2 THEN 1 ELSE 0 END,
+               book.rating.threeStars = book.rating.threeStars + CASE WHEN :stars = 3 THEN 1 ELSE 0 END,
+               book.rating.fourStars = book.rating.fourStars + CASE WHEN :stars = 4 THEN 1 ELSE 0 END,
+               book.rating.fiveStars = book.rating.fiveStars + CASE WHEN :stars = 5 THEN 1 ELSE 0 END
+           WHERE book.id = :bookId
+           """)
+    int addRating(@Param("bookId") Integer bookId, @Param("note") double note, @Param("stars") int stars);
+
+    // fill the counters of books rated before the counters existed; like addRating, feedback without a note is not counted
+    @Transactional
+    @Modifying
+    @Query("""
+           UPDATE Book book
+           SET book.rating.ratingCount = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id),
+               book.rating.ratingSum = (SELECT COALESCE(SUM(f.note), 0) FROM Feedback f WHERE f.book.id = book.id),
+               book.rating.oneStar = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id AND f.note < 1.5),
+               book.rating.twoStars = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id AND f.note >= 1.5 AND f.note < 2.5),
+               book.rating.threeStars = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id AND f.note >= 2.5 AND f.note < 3.5),
+               book.rating.fourStars = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id AND f.note >= 3.5 AND f.note < 4.5),
+               book.rating.fiveStars = (SELECT COUNT(f.note) FROM Feedback f WHERE f.book.id = book.id AND f.note >= 4.5)
+           WHERE book.rating.ratingCount = 0
+           AND EXISTS (SELECT f FROM Feedback f WHERE f.book.id = book.id AND f.note IS NOT NULL)
+           """)
+    int backfillRatingHistograms();
 }
@@ -1,5 +1,7 @@
 package com.gichungasoftwares.book_network.book;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.gichungasoftwares.book_network.common.FieldSet;
 import lombok.*;
 
 @Getter
@@ -7,6 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSet.FILTER)
 public class BookResponse {
     private Integer id;
     private String title;
@@ -16,6 +19,9 @@ public class BookResponse {
     private String owner;
     private byte[] cover;
     private double rate;
+    private RatingHistogramResponse ratingHistogram;
     private boolean archived;
     private boolean shareable;
+    // browse pages only (book_listing): no loan waiting for its return to be approved
+    private Boolean available;
 }
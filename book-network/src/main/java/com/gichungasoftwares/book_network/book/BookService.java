@@ -1,58 +1,161 @@
 package com.gichungasoftwares.book_network.book;
 
+import com.gichungasoftwares.book_network.activity.UserActivityService;
+import com.gichungasoftwares.book_network.cache.CacheInvalidationBus;
+import com.gichungasoftwares.book_network.common.FieldSet;
 import com.gichungasoftwares.book_network.common.PageResponse;
+import com.gichungasoftwares.book_network.common.PageResponseStreamer;
+import com.gichungasoftwares.book_network.diagnostics.BorrowTransitionEvent;
 import com.gichungasoftwares.book_network.file.FileStorageService;
 import com.gichungasoftwares.book_network.exception.OperationNotPermittedException;
 import com.gichungasoftwares.book_network.history.BookTransactionHistory;
 import com.gichungasoftwares.book_network.history.BookTransactionHistoryRepository;
+import com.gichungasoftwares.book_network.listing.BookListing;
+import com.gichungasoftwares.book_network.listing.BookListingProjector;
+import com.gichungasoftwares.book_network.listing.BookListingRepository;
+import com.gichungasoftwares.book_network.notification.BorrowNotification;
+import com.gichungasoftwares.book_network.notification.NotificationHub;
+import com.gichungasoftwares.book_network.recommendation.CoBorrowRecommender;
+import com.gichungasoftwares.book_network.recommendation.SimilarBooksIndex;
 import com.gichungasoftwares.book_network.user.User;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
 @RequiredArgsConstructor
+@Observed(name = "book.service")
 public class BookService {
 
     private final BookMapper bookMapper;
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository transactionHistoryRepository;
     private final FileStorageService fileStorageService;
+    private final PageResponseStreamer pageResponseStreamer;
+    private final TopRatedBooks topRatedBooks;
+    private final CoBorrowRecommender coBorrowRecommender;
+    private final SimilarBooksIndex similarBooksIndex;
+    private final NotificationHub notificationHub;
+    private final UserActivityService userActivityService;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final BookListingRepository bookListingRepository;
+    private final BookListingProjector bookListingProjector;
 
+    @Value("${application.books.batch.max-ids:200}")
+    private int maxBatchIds;
+
+    // the transitions below move the user counters in the same transaction
+    @Transactional
     public Integer save(BookRequest request, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
         // transform book request to book object
         Book book = bookMapper.toBook(request);
         book.setOwner(user);
-        return bookRepository.save(book).getId();
+        Book savedBook = bookRepository.save(book);
+        userActivityService.bookSaved(user.getUser_id());
+        similarBooksIndex.index(savedBook);
+        cacheInvalidationBus.bookChanged(savedBook.getId());
+        bookListingProjector.bookChanged(savedBook.getId());
+        return savedBook.getId();
     }
 
-    public BookResponse findById(Integer bookId) {
+    @Transactional(readOnly = true) // served by a replica when replicas are configured
+    public BookResponse findById(Integer bookId, FieldSet fields) {
         return bookRepository.findById(bookId)
-                .map(bookMapper::toBookResponse)
+                .map(book -> bookMapper.toBookResponse(book, fields))
                 .orElseThrow(() -> new EntityNotFoundException("No book found with the ID:: " + bookId));
     }
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
+    // one IN query for all the ids, the owners are loaded in batches (default_batch_fetch_size) and the
+    // rating comes with the book row; results follow the request order, repeated ids included
+    @Transactional(readOnly = true)
+    public List<BookBatchItem> findAllByIds(List<Integer> bookIds, FieldSet fields) {
+        if (bookIds.size() > maxBatchIds) {
+            throw new OperationNotPermittedException("At most " + maxBatchIds + " books can be requested at once");
+        }
+        Set<Integer> distinctIds = bookIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Integer, BookResponse> books = bookRepository.findAllById(distinctIds)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, book -> bookMapper.toBookResponse(book, fields)));
+        return bookIds.stream()
+                .map(bookId -> new BookBatchItem(bookId, books.containsKey(bookId), books.get(bookId)))
+                .toList();
+    }
+
+    public List<TopRatedBookResponse> findTopRatedBooks(int size) {
+        return topRatedBooks.top(Math.min(Math.max(size, 0), 100));
+    }
+
+    // books most often borrowed by the users who borrowed this one
+    @Transactional(readOnly = true)
+    public List<BookResponse> findRelatedBooks(Integer bookId, int size, FieldSet fields) {
+        int boundedSize = Math.min(Math.max(size, 1), 100);
+        int[] relatedBookIds = coBorrowRecommender.related(bookId, boundedSize * 2); // some may not be displayable
+        return findDisplayableBooksInOrder(relatedBookIds, boundedSize, fields);
+    }
+
+    // books with similar title, author and synopsis
+    @Transactional(readOnly = true)
+    public List<BookResponse> findSimilarBooks(Integer bookId, int size, FieldSet fields) {
+        int boundedSize = Math.min(Math.max(size, 1), 100);
+        int[] similarBookIds = similarBooksIndex.similar(bookId, boundedSize * 2); // some may not be displayable
+        return findDisplayableBooksInOrder(similarBookIds, boundedSize, fields);
+    }
+
+    private List<BookResponse> findDisplayableBooksInOrder(int[] bookIds, int size, FieldSet fields) {
+        if (bookIds.length == 0) {
+            return List.of();
+        }
+        Map<Integer, Book> books = bookRepository.findAllById(Arrays.stream(bookIds).boxed().toList())
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return Arrays.stream(bookIds)
+                .mapToObj(books::get)
+                .filter(Objects::nonNull)
+                .filter(book -> !book.isArchived() && book.isShareable())
+                .limit(size)
+                .map(book -> bookMapper.toBookResponse(book, fields))
+                .toList();
+    }
+
+    // browse pages read the book_listing read model (BookListingProjector), one table and no owner loads
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooks(int page, int size, FieldSet fields, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
         // create pageable object
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getUser_id());
+        Page<BookListing> books = bookListingRepository.findAllDisplayableBooks(pageable, user.getUser_id());
         List<BookResponse> bookResponse = books.stream()
-                .map(bookMapper::toBookResponse)
+                .map(listing -> bookMapper.toBookResponse(listing, fields))
                 .toList();
         return new PageResponse<>(
                 bookResponse,
@@ -65,14 +168,20 @@ public class BookService {
         );
     }
 
-    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, FieldSet fields, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
         // create pageable object
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAll(BookSpecification.withOwnerId(user.getUser_id()), pageable);
+        // counted only when the page does not tell the total by itself
+        Page<Book> books = PageableExecutionUtils.getPage(
+                bookRepository.findAllByOwner(pageable, user.getUser_id()),
+                pageable,
+                () -> userActivityService.booksOwned(user.getUser_id())
+        );
         List<BookResponse> bookResponse = books.stream()
-                .map(bookMapper::toBookResponse)
+                .map(book -> bookMapper.toBookResponse(book, fields))
                 .toList();
         return new PageResponse<>(
                 bookResponse,
@@ -85,14 +194,19 @@ public class BookService {
         );
     }
 
-    public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, Authentication connectedUser) {
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(int page, int size, FieldSet fields, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
         // create pageable object
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository.findAllBorrowedBooks(pageable, user.getUser_id());
+        Page<BookTransactionHistory> allBorrowedBooks = PageableExecutionUtils.getPage(
+                transactionHistoryRepository.findAllBorrowedBooks(pageable, user.getUser_id()),
+                pageable,
+                () -> userActivityService.borrowedBooks(user.getUser_id())
+        );
         List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
-                .map(bookMapper::toBorrowedBookResponse)
+                .map(history -> bookMapper.toBorrowedBookResponse(history, fields))
                 .toList();
         return new PageResponse<>(
                 bookResponses,
@@ -105,14 +219,19 @@ public class BookService {
         );
     }
 
-    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, FieldSet fields, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
         // create pageable object
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<BookTransactionHistory> allReturnedBooks = transactionHistoryRepository.findAllReturnedBooks(pageable, user.getUser_id());
+        Page<BookTransactionHistory> allReturnedBooks = PageableExecutionUtils.getPage(
+                transactionHistoryRepository.findAllReturnedBooks(pageable, user.getUser_id()),
+                pageable,
+                () -> userActivityService.returnedBooks(user.getUser_id())
+        );
         List<BorrowedBookResponse> bookResponses = allReturnedBooks.stream()
-                .map(bookMapper::toBorrowedBookResponse)
+                .map(history -> bookMapper.toBorrowedBookResponse(history, fields))
                 .toList();
         return new PageResponse<>(
                 bookResponses,
@@ -125,6 +244,59 @@ public class BookService {
         );
     }
 
+    // streaming variants of the list queries, each item is written as soon as it is read
+    public StreamingResponseBody streamAllBooks(int page, int size, MediaType mediaType, FieldSet fields, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        return pageResponseStreamer.stream(
+                mediaType,
+                pageable,
+                () -> bookListingRepository.streamAllDisplayableBooks(pageable, user.getUser_id()),
+                () -> bookListingRepository.countAllDisplayableBooks(user.getUser_id()),
+                (generator, listing) -> bookMapper.writeBookResponse(generator, listing, fields)
+        );
+    }
+
+    public StreamingResponseBody streamAllBooksByOwner(int page, int size, MediaType mediaType, FieldSet fields, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        Supplier<Stream<Book>> query = fields.includes("owner")
+                ? () -> bookRepository.streamAllByOwner(pageable, user.getUser_id())
+                : () -> bookRepository.streamAllByOwnerWithoutOwnerFetch(pageable, user.getUser_id());
+        return pageResponseStreamer.stream(
+                mediaType,
+                pageable,
+                query,
+                () -> userActivityService.booksOwned(user.getUser_id()),
+                (generator, book) -> bookMapper.writeBookResponse(generator, book, fields)
+        );
+    }
+
+    public StreamingResponseBody streamAllBorrowedBooks(int page, int size, MediaType mediaType, FieldSet fields, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        return pageResponseStreamer.stream(
+                mediaType,
+                pageable,
+                () -> transactionHistoryRepository.streamAllBorrowedBooks(pageable, user.getUser_id()),
+                () -> userActivityService.borrowedBooks(user.getUser_id()),
+                (generator, history) -> bookMapper.writeBorrowedBookResponse(generator, history, fields)
+        );
+    }
+
+    public StreamingResponseBody streamAllReturnedBooks(int page, int size, MediaType mediaType, FieldSet fields, Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        return pageResponseStreamer.stream(
+                mediaType,
+                pageable,
+                () -> transactionHistoryRepository.streamAllReturnedBooks(pageable, user.getUser_id()),
+                () -> userActivityService.returnedBooks(user.getUser_id()),
+                (generator, history) -> bookMapper.writeBorrowedBookResponse(generator, history, fields)
+        );
+    }
+
+    @Transactional
     public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
@@ -137,9 +309,13 @@ public class BookService {
         }
         book.setShareable(!book.isShareable()); // inverse the value
         bookRepository.save(book);
+        topRatedBooks.update(book);
+        cacheInvalidationBus.bookChanged(bookId);
+        bookListingProjector.bookChanged(bookId);
         return bookId;
     }
 
+    @Transactional
     public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
         // get the user from the authentication
         User user = ((User) connectedUser.getPrincipal());
@@ -152,11 +328,18 @@ public class BookService {
         }
         book.setArchived(!book.isArchived()); // inverse the value
         bookRepository.save(book);
+        userActivityService.archivedStatusChanged(user.getUser_id(), book.isArchived());
+        topRatedBooks.update(book);
+        cacheInvalidationBus.bookChanged(bookId);
+        bookListingProjector.bookChanged(bookId);
         return bookId;
     }
 
 
+    @Transactional
     public Integer borrowBook(Integer bookId, Authentication connectedUser) {
+        BorrowTransitionEvent event = new BorrowTransitionEvent();
+        event.begin();
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with ID:: " + bookId));
         if (book.isArchived() || !book.isShareable()) {
@@ -176,19 +359,28 @@ public class BookService {
             throw new OperationNotPermittedException("The requested book is already borrowed");
         }
 
-        System.out.println("this works");
         BookTransactionHistory bookTransactionHistory = BookTransactionHistory.builder()
                 .user(user)
                 .book(book)
                 .isReturned(false)
                 .isReturnApproved(false)
                 .build();
-        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+        Integer historyId = transactionHistoryRepository.save(bookTransactionHistory).getId();
+        userActivityService.bookBorrowed(user.getUser_id());
+        coBorrowRecommender.onBorrow(historyId, user.getUser_id(), bookId);
+        bookListingProjector.bookChanged(bookId); // no longer available
+        notificationHub.publishAfterCommit(book.getOwner().getUser_id(),
+                BorrowNotification.of(BorrowNotification.BORROWED, book, historyId, user));
+        event.complete(BorrowTransitionEvent.BORROW, bookId, user.getUser_id(), historyId);
+        return historyId;
 
     }
 
 
+    @Transactional
     public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
+        BorrowTransitionEvent event = new BorrowTransitionEvent();
+        event.begin();
         // get the book with this id
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with the ID:: " + bookId));
@@ -206,11 +398,20 @@ public class BookService {
         BookTransactionHistory bookTransactionHistory = transactionHistoryRepository.findByBookIdAndUserId(bookId, user.getUser_id())
                 .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
         bookTransactionHistory.setReturned(true);
-        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+        Integer historyId = transactionHistoryRepository.save(bookTransactionHistory).getId();
+        userActivityService.bookReturned(book.getOwner().getUser_id());
+        // the owner has a return to approve
+        notificationHub.publishAfterCommit(book.getOwner().getUser_id(),
+                BorrowNotification.of(BorrowNotification.RETURNED, book, historyId, user));
+        event.complete(BorrowTransitionEvent.RETURN, bookId, user.getUser_id(), historyId);
+        return historyId;
     }
 
 
+    @Transactional
     public Integer ApproveReturnedBorrowedBook(Integer bookId, Authentication connectedUser) {
+        BorrowTransitionEvent event = new BorrowTransitionEvent();
+        event.begin();
         // get the book with this id
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new EntityNotFoundException("No book found with the ID:: " + bookId));
@@ -228,7 +429,13 @@ public class BookService {
         BookTransactionHistory bookTransactionHistory = transactionHistoryRepository.findByBookIdAndOwnerId(bookId, user.getUser_id())
                 .orElseThrow(() -> new OperationNotPermittedException("The book is not returned or you have already approved its return"));
         bookTransactionHistory.setReturnApproved(true);
-        return transactionHistoryRepository.save(bookTransactionHistory).getId();
+        Integer historyId = transactionHistoryRepository.save(bookTransactionHistory).getId();
+        userActivityService.returnApproved(user.getUser_id(), bookTransactionHistory.getUser().getUser_id());
+        bookListingProjector.bookChanged(bookId); // available again
+        notificationHub.publishAfterCommit(bookTransactionHistory.getUser().getUser_id(),
+                BorrowNotification.of(BorrowNotification.RETURN_APPROVED, book, historyId, user));
+        event.complete(BorrowTransitionEvent.APPROVE_RETURN, bookId, user.getUser_id(), historyId);
+        return historyId;
     }
 
     public void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId) {
@@ -240,5 +447,7 @@ public class BookService {
         var bookCover = fileStorageService.saveFile(file, user.getUser_id());
         book.setBookCover(bookCover);
         bookRepository.save(book);
+        cacheInvalidationBus.bookChanged(bookId);
+        bookListingProjector.bookChanged(bookId);
     }
 }
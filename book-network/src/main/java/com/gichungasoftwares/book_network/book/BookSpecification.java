@@ -1,9 +0,0 @@
-package com.gichungasoftwares.book_network.book;
-
-import org.springframework.data.jpa.domain.Specification;
-
-public class BookSpecification {
-    public static Specification<Book> withOwnerId(Integer ownerId) {
-        return ((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("owner").get("id"), ownerId));
-    }
-}
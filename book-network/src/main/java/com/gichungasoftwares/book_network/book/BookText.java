@@ -0,0 +1,10 @@
+package com.gichungasoftwares.book_network.book;
+
+// the text columns used for content similarity, read without loading the entity
+public record BookText(
+        Integer id,
+        String title,
+        String authorName,
+        String synopsis
+) {
+}
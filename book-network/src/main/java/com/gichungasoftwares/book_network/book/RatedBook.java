@@ -0,0 +1,11 @@
+package com.gichungasoftwares.book_network.book;
+
+// the columns needed to rank a book, read without loading the entity
+public record RatedBook(
+        Integer id,
+        String title,
+        String authorName,
+        int ratingCount,
+        double ratingSum
+) {
+}
@@ -0,0 +1,59 @@
+package com.gichungasoftwares.book_network.book;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+// per book 1-5 star counters, maintained on every feedback write.
+// Only written by the BookRepository bulk updates (addRating, backfillRatingHistograms): a Book loaded before a rating
+// and saved after it (status toggles, cover upload) must not write its stale counters back; they are read
+// back with the update instead, so the second level cache gets the counters of the row.
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class RatingHistogram {
+
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int oneStar;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int twoStars;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int threeStars;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int fourStars;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int fiveStars;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private int ratingCount;
+    @ColumnDefault("0")
+    @Generated(event = EventType.UPDATE)
+    @Column(nullable = false, updatable = false)
+    private double ratingSum;
+
+    // notes are 0-5 with decimals, they are counted in the nearest star
+    public static int starsOf(double note) {
+        return (int) Math.min(5, Math.max(1, Math.round(note)));
+    }
+
+    public double average() {
+        return ratingCount == 0 ? 0.0 : ratingSum / ratingCount;
+    }
+}
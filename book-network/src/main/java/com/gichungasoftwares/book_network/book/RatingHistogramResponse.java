@@ -0,0 +1,17 @@
+package com.gichungasoftwares.book_network.book;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RatingHistogramResponse {
+    private int oneStar;
+    private int twoStars;
+    private int threeStars;
+    private int fourStars;
+    private int fiveStars;
+    private int total;
+}
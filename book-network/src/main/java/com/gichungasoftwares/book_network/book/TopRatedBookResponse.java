@@ -0,0 +1,20 @@
+package com.gichungasoftwares.book_network.book;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonFilter(FieldSet.FILTER)
+public class TopRatedBookResponse {
+    private Integer id;
+    private String title;
+    private String authorName;
+    private double rate;
+    private int ratingCount;
+    private double score;
+}
@@ -0,0 +1,134 @@
+package com.gichungasoftwares.book_network.book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// In memory leaderboard of the displayable books ordered by a bayesian weighted rating.
+// Updates are O(log n) on the skip list, reading the top k is O(k).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TopRatedBooks {
+
+    private final BookRepository bookRepository;
+
+    @Value("${application.books.top.prior-mean:3.0}")
+    private double priorMean;
+    @Value("${application.books.top.prior-weight:10}")
+    private double priorWeight;
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble(Entry::score).reversed().thenComparingInt(Entry::bookId)
+    );
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(int bookId, double score, String title, String authorName, int ratingCount, double ratingSum) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        ranking.clear();
+        entries.clear();
+        try (Stream<RatedBook> ratedBooks = bookRepository.streamAllRatedDisplayableBooks()) {
+            ratedBooks.forEach(this::put);
+        }
+        log.info("Top rated books rebuilt with {} books in {} ms", entries.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    // call after any change of the book rating, shareable or archived status; the book is read now,
+    // the leaderboard changes once the calling transaction commits
+    public void update(Book book) {
+        Integer bookId = book.getId();
+        if (book.isArchived() || !book.isShareable() || book.getRating() == null || book.getRating().getRatingCount() == 0) {
+            afterCommit(() -> removeNow(bookId));
+            return;
+        }
+        RatedBook ratedBook = new RatedBook(
+                bookId,
+                book.getTitle(),
+                book.getAuthorName(),
+                book.getRating().getRatingCount(),
+                book.getRating().getRatingSum()
+        );
+        afterCommit(() -> put(ratedBook));
+    }
+
+    // call after a rating change of a displayable book
+    public void update(RatedBook book) {
+        afterCommit(() -> put(book));
+    }
+
+    public void remove(Integer bookId) {
+        afterCommit(() -> removeNow(bookId));
+    }
+
+    // a rolled back change never reaches the leaderboard
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void removeNow(Integer bookId) {
+        entries.computeIfPresent(bookId, (id, previous) -> {
+            ranking.remove(previous);
+            return null;
+        });
+    }
+
+    public List<TopRatedBookResponse> top(int size) {
+        List<TopRatedBookResponse> top = new ArrayList<>(size);
+        for (Entry entry : ranking) {
+            if (top.size() >= size) {
+                break;
+            }
+            top.add(TopRatedBookResponse.builder()
+                    .id(entry.bookId())
+                    .title(entry.title())
+                    .authorName(entry.authorName())
+                    .rate(Math.round(entry.ratingSum() / entry.ratingCount() * 10.0) / 10.0)
+                    .ratingCount(entry.ratingCount())
+                    .score(entry.score())
+                    .build());
+        }
+        return top;
+    }
+
+    private void put(RatedBook book) {
+        // pulls books with few ratings towards the prior mean so a single 5 star note does not top the list
+        double score = (priorWeight * priorMean + book.ratingSum()) / (priorWeight + book.ratingCount());
+        Entry entry = new Entry(book.id(), score, book.title(), book.authorName(), book.ratingCount(), book.ratingSum());
+        // compute is atomic per book, so the skip list never holds two entries of the same book
+        entries.compute(book.id(), (id, previous) -> {
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(entry);
+            return entry;
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.gichungasoftwares.book_network.cache;
+
+import java.util.Set;
+
+// One NOTIFY payload: the books and users changed by the sending node, or everything (all)
+public record CacheInvalidation(String node, Set<Integer> books, Set<Integer> users, boolean all) {
+}
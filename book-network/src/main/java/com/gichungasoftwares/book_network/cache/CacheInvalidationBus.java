@@ -0,0 +1,298 @@
+package com.gichungasoftwares.book_network.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Keeps the in-process caches of several instances sharing the database consistent, without a broker.
+// Committed changes of books and users are collected for a flush interval, coalesced per id and sent
+// as a few Postgres NOTIFY messages. Every node LISTENs on a connection of its own (not from the pool)
+// and applies the messages of the other nodes through LocalCaches. A node that lost its connection may
+// have missed messages, so it drops all its cached state once reconnected.
+// Off by default, a single instance needs none of it (and H2 has no LISTEN/NOTIFY).
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    public static final String CHANNEL = "cache_invalidation";
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int IDS_PER_MESSAGE = 500;
+    private static final Duration MIN_RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private final LocalCaches localCaches;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final Counter sent;
+    private final Counter received;
+    private final Counter resyncs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<Integer> pendingBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingAll = new AtomicBoolean();
+    private volatile boolean running;
+    private Thread listener;
+
+    @Value("${application.cache.invalidation.enabled:false}")
+    private boolean enabled;
+    // a burst of more changes than this is sent as one full eviction
+    @Value("${application.cache.invalidation.max-pending:5000}")
+    private int maxPending;
+    @Value("${application.cache.invalidation.poll-timeout:10s}")
+    private Duration pollTimeout;
+    @Value("${application.cache.invalidation.max-reconnect-delay:30s}")
+    private Duration maxReconnectDelay;
+
+    public CacheInvalidationBus(
+            LocalCaches localCaches,
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.localCaches = localCaches;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.sent = Counter.builder("cache.invalidation.messages").tag("direction", "sent").register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.messages").tag("direction", "received").register(meterRegistry);
+        this.resyncs = Counter.builder("cache.invalidation.resyncs")
+                .description("Full evictions after the listener connection was lost")
+                .register(meterRegistry);
+    }
+
+    public void bookChanged(Integer bookId) {
+        publishAfterCommit(pendingBooks, bookId);
+    }
+
+    public void userChanged(Integer userId) {
+        publishAfterCommit(pendingUsers, userId);
+    }
+
+    // a rolled back change has nothing to evict
+    private void publishAfterCommit(Set<Integer> pending, Integer id) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(pending, id);
+                }
+            });
+        } else {
+            add(pending, id);
+        }
+    }
+
+    private void add(Set<Integer> pending, Integer id) {
+        pending.add(id);
+        if (pendingBooks.size() + pendingUsers.size() > maxPending) {
+            pendingAll.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.cache.invalidation.flush-interval:PT0.1S}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        List<CacheInvalidation> messages = drain();
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                send(messages.get(i));
+            } catch (DataAccessException e) {
+                log.warn("Cache invalidation not sent, retrying with the next flush: {}", e.toString());
+                messages.subList(i, messages.size()).forEach(this::requeue);
+                return;
+            }
+        }
+    }
+
+    private List<CacheInvalidation> drain() {
+        if (pendingAll.getAndSet(false)) {
+            // the ids added meanwhile were committed before the full eviction is sent
+            pendingBooks.clear();
+            pendingUsers.clear();
+            return List.of(new CacheInvalidation(nodeId, Set.of(), Set.of(), true));
+        }
+        List<CacheInvalidation> messages = new ArrayList<>();
+        drain(pendingBooks, books -> messages.add(new CacheInvalidation(nodeId, books, Set.of(), false)));
+        drain(pendingUsers, users -> messages.add(new CacheInvalidation(nodeId, Set.of(), users, false)));
+        return messages;
+    }
+
+    private static void drain(Set<Integer> pending, Consumer<Set<Integer>> message) {
+        Set<Integer> ids = new HashSet<>();
+        Iterator<Integer> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next());
+            iterator.remove();
+            if (ids.size() == IDS_PER_MESSAGE) {
+                message.accept(ids);
+                ids = new HashSet<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            message.accept(ids);
+        }
+    }
+
+    private void requeue(CacheInvalidation message) {
+        if (message.all()) {
+            pendingAll.set(true);
+            return;
+        }
+        message.books().forEach(bookId -> add(pendingBooks, bookId));
+        message.users().forEach(userId -> add(pendingUsers, userId));
+    }
+
+    // outside a transaction, so on the primary and delivered at once
+    private void send(CacheInvalidation message) {
+        String payload = write(message);
+        jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, payload);
+            return statement.execute();
+        });
+        sent.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform()
+                .name("cache-invalidation-listener")
+                .daemon()
+                .start(this::listen);
+        log.info("Cache invalidation bus started, node {}", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        Duration reconnectDelay = MIN_RECONNECT_DELAY;
+        boolean missedMessages = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword());
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                // listening first, the changes made during the resync are queued on the connection
+                if (missedMessages) {
+                    resyncs.increment();
+                    localCaches.resync();
+                    missedMessages = false;
+                }
+                reconnectDelay = MIN_RECONNECT_DELAY;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null || notifications.length == 0) {
+                        // a connection dropped by the network only fails on the next statement
+                        statement.execute("SELECT 1");
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                missedMessages = true;
+                log.warn("Cache invalidation listener disconnected, reconnecting in {}: {}", reconnectDelay, e.toString());
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = reconnectDelay.multipliedBy(2).compareTo(maxReconnectDelay) > 0
+                        ? maxReconnectDelay
+                        : reconnectDelay.multipliedBy(2);
+            }
+        }
+    }
+
+    void receive(String payload) {
+        CacheInvalidation message;
+        try {
+            message = objectMapper.readValue(payload, CacheInvalidation.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        // this node's own changes are already in its caches
+        if (nodeId.equals(message.node())) {
+            return;
+        }
+        received.increment();
+        if (message.all()) {
+            localCaches.resync();
+            return;
+        }
+        if (!message.books().isEmpty()) {
+            localCaches.evictBooks(message.books());
+        }
+        if (!message.users().isEmpty()) {
+            localCaches.evictUsers(message.users());
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    private String write(CacheInvalidation message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cache invalidation could not be written", e);
+        }
+    }
+}
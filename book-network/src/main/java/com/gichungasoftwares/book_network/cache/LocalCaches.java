@@ -0,0 +1,75 @@
+package com.gichungasoftwares.book_network.cache;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.book.BookRepository;
+import com.gichungasoftwares.book_network.book.TopRatedBooks;
+import com.gichungasoftwares.book_network.recommendation.SimilarBooksIndex;
+import com.gichungasoftwares.book_network.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The in-process state of this node built from books and users: the second level cache regions,
+// the top rated leaderboard and the similar books index. Applies the changes made on other nodes.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocalCaches {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final BookRepository bookRepository;
+    private final TopRatedBooks topRatedBooks;
+    private final SimilarBooksIndex similarBooksIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    public void evictBooks(Collection<Integer> bookIds) {
+        Cache cache = cache();
+        bookIds.forEach(bookId -> cache.evictEntityData(Book.class, bookId));
+        // read back in a read-write transaction, so from the primary: a replica may not have the change yet
+        List<Book> books = new TransactionTemplate(transactionManager).execute(status -> bookRepository.findAllById(bookIds));
+        Set<Integer> found = books.stream().map(Book::getId).collect(Collectors.toSet());
+        for (Book book : books) {
+            topRatedBooks.update(book);
+            similarBooksIndex.index(book);
+        }
+        bookIds.stream()
+                .filter(bookId -> !found.contains(bookId))
+                .forEach(bookId -> {
+                    topRatedBooks.remove(bookId);
+                    similarBooksIndex.remove(bookId);
+                });
+    }
+
+    public void evictUsers(Collection<Integer> userIds) {
+        Cache cache = cache();
+        for (Integer userId : userIds) {
+            cache.evictEntityData(User.class, userId);
+            cache.evictCollectionData(User.class.getName() + ".roles", userId);
+        }
+        // email -> id, an email change on another node leaves the old mapping behind
+        cache.evictNaturalIdData(User.class);
+    }
+
+    // after changes may have been missed
+    public void resync() {
+        long startedAt = System.currentTimeMillis();
+        cache().evictAllRegions();
+        topRatedBooks.rebuild();
+        similarBooksIndex.rebuild();
+        log.info("Local caches resynced in {} ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -0,0 +1,17 @@
+package com.gichungasoftwares.book_network.common;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private Integer nextCursor; // null when there is nothing after this page
+    private boolean last;
+}
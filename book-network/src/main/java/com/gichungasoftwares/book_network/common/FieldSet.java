@@ -0,0 +1,54 @@
+package com.gichungasoftwares.book_network.common;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The response fields asked for with ?fields=title,authorName, the id is always part of them.
+// Mappers skip the work behind the fields left out (owner lookup, cover read, rating) and
+// FieldSetResponseBodyAdvice leaves them out of the body. Unknown names are ignored.
+public final class FieldSet {
+
+    // @JsonFilter id of the responses that can be pruned
+    public static final String FILTER = "fields";
+    public static final FieldSet ALL = new FieldSet(null);
+
+    private final Set<String> names;
+
+    private FieldSet(Set<String> names) {
+        this.names = names;
+    }
+
+    // every field when the parameter is missing or blank
+    public static FieldSet parse(String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return ALL;
+        }
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toCollection(HashSet::new));
+        names.add("id");
+        return new FieldSet(Set.copyOf(names));
+    }
+
+    public boolean includes(String field) {
+        return names == null || names.contains(field);
+    }
+
+    public FilterProvider filters() {
+        return names == null ? serializeAll() : new SimpleFilterProvider()
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+
+    // the default of every ObjectMapper, a @JsonFilter without a filter provider fails the serialization
+    public static FilterProvider serializeAll() {
+        return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.serializeAll());
+    }
+}
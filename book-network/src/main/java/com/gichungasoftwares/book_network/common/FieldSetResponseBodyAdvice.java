@@ -0,0 +1,35 @@
+package com.gichungasoftwares.book_network.common;
+
+import com.gichungasoftwares.book_network.book.BookController;
+import com.gichungasoftwares.book_network.feedback.FeedbackController;
+import com.gichungasoftwares.book_network.reactive.ReactiveCatalogController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+// Applies ?fields= to the JSON, CBOR and Smile bodies of the book and feedback reads, the streamed
+// pages apply it while writing (the reactive application/x-ndjson items leave the skipped fields empty)
+@ControllerAdvice(assignableTypes = {BookController.class, FeedbackController.class, ReactiveCatalogController.class})
+public class FieldSetResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(
+            MappingJacksonValue bodyContainer,
+            MediaType contentType,
+            MethodParameter returnType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            String fields = servletRequest.getServletRequest().getParameter("fields");
+            if (fields != null) {
+                bodyContainer.setFilters(FieldSet.parse(fields).filters());
+            }
+        }
+    }
+}
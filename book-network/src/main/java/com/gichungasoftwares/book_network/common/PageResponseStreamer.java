@@ -0,0 +1,141 @@
+package com.gichungasoftwares.book_network.common;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.config.BinaryEncodingConfig;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes a PageResponse shaped document (JSON, CBOR or Smile) item by item while the query is still
+// being read, so only the item being written is alive instead of the whole page
+@Service
+@RequiredArgsConstructor
+public class PageResponseStreamer {
+
+    private static final List<MediaType> ENCODINGS = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            BinaryEncodingConfig.APPLICATION_SMILE
+    );
+
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @FunctionalInterface
+    public interface ItemWriter<T> {
+        void write(JsonGenerator generator, T item) throws IOException;
+    }
+
+    // the most specific encoding of the Accept header, JSON when nothing else matches
+    public static MediaType negotiate(String accept) {
+        List<MediaType> sorted;
+        try {
+            sorted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(sorted);
+        for (MediaType mediaType : sorted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType encoding : ENCODINGS) {
+                if (mediaType.isCompatibleWith(encoding)) {
+                    return encoding;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    public <T> StreamingResponseBody stream(
+            MediaType mediaType,
+            Pageable pageable,
+            Supplier<Stream<T>> query,
+            LongSupplier totalElements,
+            ItemWriter<T> itemWriter
+    ) {
+        return outputStream -> {
+            TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+            readOnlyTransaction.setReadOnly(true);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> content = query.get()) {
+                    write(factory(mediaType), outputStream, pageable, content, totalElements, itemWriter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private JsonFactory factory(MediaType mediaType) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+            return cborConverter.getObjectMapper().getFactory();
+        }
+        if (BinaryEncodingConfig.APPLICATION_SMILE.equalsTypeAndSubtype(mediaType)) {
+            return smileConverter.getObjectMapper().getFactory();
+        }
+        return objectMapper.getFactory();
+    }
+
+    private <T> void write(
+            JsonFactory factory,
+            OutputStream outputStream,
+            Pageable pageable,
+            Stream<T> content,
+            LongSupplier totalElements,
+            ItemWriter<T> itemWriter
+    ) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            // the servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("content");
+            Iterator<T> items = content.iterator();
+            while (items.hasNext()) {
+                T item = items.next();
+                itemWriter.write(generator, item);
+                // the item is written, let it go instead of keeping it in the persistence context
+                entityManager.detach(item);
+            }
+            generator.writeEndArray();
+
+            // counted after the content so the first bytes reach the client as early as possible
+            long total = totalElements.getAsLong();
+            int size = pageable.getPageSize();
+            int totalPages = size == 0 ? 1 : (int) Math.ceil((double) total / size);
+            generator.writeNumberField("number", pageable.getPageNumber());
+            generator.writeNumberField("size", size);
+            generator.writeNumberField("totalElements", total);
+            generator.writeNumberField("totalPages", totalPages);
+            generator.writeBooleanField("first", pageable.getPageNumber() == 0);
+            generator.writeBooleanField("last", pageable.getPageNumber() + 1 >= totalPages);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.gichungasoftwares.book_network.config;
 
+import com.gichungasoftwares.book_network.common.FieldSet;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,12 +17,15 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Configuration
 @RequiredArgsConstructor
@@ -76,5 +84,29 @@ public class BeansConfig {
         return new ApplicationAuditAware();
     }
 
+    // the responses that ?fields= can prune are written in full when the request does not use it
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSetFilters() {
+        return builder -> builder.filters(FieldSet.serializeAll());
+    }
+
+    // with spring.main.lazy-initialization a bean that is never injected is never created,
+    // so its @Scheduled methods would never be registered
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansAreEager() {
+        return (beanName, beanDefinition, beanType) -> {
+            if (beanType == null) {
+                return false;
+            }
+            AtomicBoolean scheduled = new AtomicBoolean();
+            ReflectionUtils.doWithMethods(
+                    ClassUtils.getUserClass(beanType),
+                    method -> scheduled.set(true),
+                    method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+            );
+            return scheduled.get();
+        };
+    }
+
 
 }
@@ -0,0 +1,42 @@
+package com.gichungasoftwares.book_network.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// CBOR (application/cbor) and Smile (application/x-jackson-smile) next to JSON for every controller,
+// picked from the Accept header. They take the same Jackson settings as the JSON converter and
+// byte[] fields (the covers) are written as raw bytes instead of base64. JSON stays the default.
+@Configuration
+public class BinaryEncodingConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    // replace the default converters of the same type, which ignore the spring.jackson settings
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(cborFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory()).build());
+    }
+
+    public static CBORFactory cborFactory() {
+        return new CBORFactory();
+    }
+
+    // Smile escapes binary into 7 bits per byte by default, so it never contains its own header bytes
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder()
+                .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.gichungasoftwares.book_network.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+// The JCache CacheManager of the second level cache regions (application.conf). The provider keeps one
+// manager per uri for the whole JVM, the default one would be shared by every application context:
+// a restarted context (devtools, a test context over a recreated schema) would read the rows cached by
+// the previous one. Each context gets a manager of its own, closed with it.
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private final CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("book-network:" + ObjectUtils.getIdentityHexString(this)), getClass().getClassLoader());
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @PreDestroy
+    public void close() {
+        cacheManager.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.gichungasoftwares.book_network.dashboard;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("me")
+@RequiredArgsConstructor
+@Tag(name = "Dashboard")
+public class DashboardController {
+    private final DashboardService dashboardService;
+
+    // owned, borrowed and returned books (first page) with the open loans and pending approvals counters
+    @GetMapping("/dashboard")
+    public ResponseEntity<DashboardResponse> dashboard(Authentication connectedUser) {
+        return ResponseEntity.ok(dashboardService.dashboard(connectedUser));
+    }
+}
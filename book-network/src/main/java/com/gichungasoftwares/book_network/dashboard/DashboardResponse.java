@@ -0,0 +1,25 @@
+package com.gichungasoftwares.book_network.dashboard;
+
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.book.BorrowedBookResponse;
+import com.gichungasoftwares.book_network.common.PageResponse;
+import lombok.*;
+
+import java.util.List;
+
+// First page of each list and the counters, a section that failed or timed out is null and named in unavailable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DashboardResponse {
+    private PageResponse<BookResponse> ownedBooks;
+    private PageResponse<BorrowedBookResponse> borrowedBooks;
+    private PageResponse<BorrowedBookResponse> returnedBooks;
+    private Long booksOwned;
+    private Long archivedBooks;
+    private Long openLoans;
+    private Long pendingApprovals;
+    private List<String> unavailable;
+}
@@ -0,0 +1,132 @@
+package com.gichungasoftwares.book_network.dashboard;
+
+import com.gichungasoftwares.book_network.activity.UserActivity;
+import com.gichungasoftwares.book_network.activity.UserActivityService;
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.book.BorrowedBookResponse;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.common.PageResponse;
+import com.gichungasoftwares.book_network.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Everything the app shows when it opens, in one call: the sections are independent read-only
+// queries run at the same time, so the response takes as long as the slowest one instead of the sum.
+// A section that fails or runs past its timeout is left out instead of failing the whole dashboard.
+// The sections run on a pool of their own: bounded so a burst of app opens cannot take every database
+// connection, and apart from the @Async executor (it is not a bean, one would replace that executor).
+@Service
+@Slf4j
+public class DashboardService {
+
+    private final BookService bookService;
+    private final UserActivityService userActivityService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor pool;
+    // the sections read the connected user from the security context (replica routing)
+    private final Executor executor;
+
+    @Value("${application.dashboard.page-size:5}")
+    private int pageSize;
+    @Value("${application.dashboard.section-timeout:2s}")
+    private Duration sectionTimeout;
+
+    public DashboardService(
+            BookService bookService,
+            UserActivityService userActivityService,
+            MeterRegistry meterRegistry,
+            ThreadPoolTaskExecutorBuilder executorBuilder,
+            @Value("${application.dashboard.parallelism:4}") int parallelism,
+            @Value("${application.dashboard.queue-capacity:100}") int queueCapacity
+    ) {
+        this.bookService = bookService;
+        this.userActivityService = userActivityService;
+        this.meterRegistry = meterRegistry;
+        // the Boot builder applies the task decorator, so the trace context follows the sections
+        this.pool = executorBuilder
+                .threadNamePrefix("dashboard-")
+                .corePoolSize(parallelism)
+                .maxPoolSize(parallelism)
+                .queueCapacity(queueCapacity)
+                .build();
+        this.pool.initialize();
+        this.executor = new DelegatingSecurityContextExecutor(pool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public DashboardResponse dashboard(Authentication connectedUser) {
+        Integer userId = ((User) connectedUser.getPrincipal()).getUser_id();
+        List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<PageResponse<BookResponse>> ownedBooks = section("ownedBooks", unavailable,
+                () -> bookService.findAllBooksByOwner(0, pageSize, FieldSet.ALL, connectedUser));
+        CompletableFuture<PageResponse<BorrowedBookResponse>> borrowedBooks = section("borrowedBooks", unavailable,
+                () -> bookService.findAllBorrowedBooks(0, pageSize, FieldSet.ALL, connectedUser));
+        CompletableFuture<PageResponse<BorrowedBookResponse>> returnedBooks = section("returnedBooks", unavailable,
+                () -> bookService.findAllReturnedBooks(0, pageSize, FieldSet.ALL, connectedUser));
+        // the badges, one row
+        CompletableFuture<UserActivity> activity = section("counters", unavailable,
+                () -> userActivityService.counters(userId));
+
+        // every section completes by its timeout, with null when it is unavailable
+        CompletableFuture.allOf(ownedBooks, borrowedBooks, returnedBooks, activity).join();
+        UserActivity counters = activity.join();
+        List<String> missing = new ArrayList<>(unavailable);
+        Collections.sort(missing);
+        return DashboardResponse.builder()
+                .ownedBooks(ownedBooks.join())
+                .borrowedBooks(borrowedBooks.join())
+                .returnedBooks(returnedBooks.join())
+                .booksOwned(counters == null ? null : counters.getBooksOwned())
+                .archivedBooks(counters == null ? null : counters.getArchivedBooks())
+                .openLoans(counters == null ? null : counters.getOpenLoans())
+                .pendingApprovals(counters == null ? null : counters.getPendingApprovals())
+                .unavailable(missing)
+                .build();
+    }
+
+    private <T> CompletableFuture<T> section(String name, List<String> unavailable, Supplier<T> query) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(sectionTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    sample.stop(meterRegistry.timer("dashboard.section", "section", name, "outcome", error == null ? "success" : "unavailable"));
+                    if (error != null) {
+                        // a timed out query keeps running on its thread until the database answers
+                        log.warn("Dashboard section {} unavailable: {}", name, error.toString());
+                        unavailable.add(name);
+                        return null;
+                    }
+                    return result;
+                });
+    }
+}
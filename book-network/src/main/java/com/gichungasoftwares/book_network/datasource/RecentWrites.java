@@ -0,0 +1,39 @@
+package com.gichungasoftwares.book_network.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Users who committed a write in the last window, their reads go to the primary
+// so they see their own write even if the replicas lag behind
+public class RecentWrites {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<Integer, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public RecentWrites(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void record(Integer userId) {
+        long now = System.nanoTime();
+        lastWrites.put(userId, now);
+        if (lastWrites.size() > PURGE_THRESHOLD) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+        }
+    }
+
+    public boolean wroteRecently(Integer userId) {
+        Long writtenAt = lastWrites.get(userId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(userId, writtenAt);
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gichungasoftwares.book_network.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import net.ttddyy.observation.boot.autoconfigure.DataSourceObservationBeanPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Replaces the auto-configured datasource when application.datasource.replica.urls is set:
+// one Hikari pool for spring.datasource (primary) and one per replica url, same credentials
+// and spring.datasource.hikari settings unless the replica ones are given.
+// The bean is not named dataSource: it is excluded from datasource-micrometer (jdbc.excluded-data-source-bean-names),
+// whose proxy reads the connection metadata as soon as a connection is handed out and so would pick the pool
+// before the transaction is bound. The tracing proxy is put between the lazy proxy and the routing instead.
+@Configuration
+@ConditionalOnProperty(prefix = "application.datasource.replica", name = "urls")
+public class ReplicaDataSourceConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource routingDataSource(
+            DataSourceProperties properties,
+            ObjectProvider<DataSourceObservationBeanPostProcessor> tracing,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${application.datasource.replica.urls}") List<String> replicaUrls,
+            @Value("${application.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${application.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+            @Value("${application.datasource.replica.read-your-writes-window:5s}") Duration readYourWritesWindow
+    ) {
+        Map<Object, Object> targets = new HashMap<>();
+        HikariDataSource primary = pool(ReplicaRoutingDataSource.PRIMARY, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), properties, environment, meterRegistry);
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        List<String> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            targets.put(name, pool(name, replicaUrls.get(i).trim(), replicaUsername, replicaPassword, properties, environment, meterRegistry));
+            replicas.add(name);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicas, new RecentWrites(readYourWritesWindow), meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        // the pool is chosen on the first statement, once the transaction and its read-only flag are bound;
+        // the defaults are given so no connection is opened at startup to read them
+        DataSource traced = tracing.stream()
+                .map(postProcessor -> (DataSource) postProcessor.postProcessAfterInitialization(routing, "dataSource"))
+                .findFirst()
+                .orElse(routing);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(traced);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    private HikariDataSource pool(
+            String name,
+            String url,
+            String username,
+            String password,
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry
+    ) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setDriverClassName(properties.determineDriverClassName());
+        // hikaricp.* meters tagged with the pool name
+        pool.setMetricRegistry(meterRegistry);
+        pools.add(pool);
+        return pool;
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,69 @@
+package com.gichungasoftwares.book_network.datasource;
+
+import com.gichungasoftwares.book_network.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Picks the pool when a connection is really needed (behind a LazyConnectionDataSourceProxy, so the
+// transaction is already bound): read-only transactions go round robin to the replicas, everything else
+// and the reads of a user who just wrote go to the primary. Each decision is counted in datasource.routing.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicas;
+    private final RecentWrites recentWrites;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(List<String> replicas, RecentWrites recentWrites, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.recentWrites = recentWrites;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return route(PRIMARY, "no-transaction");
+        }
+        Integer userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recentWrites.record(userId);
+                    }
+                });
+            }
+            return route(PRIMARY, "read-write");
+        }
+        if (userId != null && recentWrites.wroteRecently(userId)) {
+            return route(PRIMARY, "read-your-writes");
+        }
+        String replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+        return route(replica, "read-only");
+    }
+
+    private String route(String target, String reason) {
+        meterRegistry.counter("datasource.routing", "target", target, "reason", reason).increment();
+        return target;
+    }
+
+    // the JWT filter loads the user before it is authenticated, so that lookup does not count as a write
+    private static Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getUser_id();
+        }
+        return null;
+    }
+}
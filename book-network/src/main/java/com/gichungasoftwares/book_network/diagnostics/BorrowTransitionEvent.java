@@ -0,0 +1,40 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A borrow, return or return approval, from the book lookup to the saved history row
+@Name("com.gichungasoftwares.book_network.BorrowTransition")
+@Label("Borrow Transition")
+@Category({"Book Network", "Borrowing"})
+@StackTrace(false)
+public class BorrowTransitionEvent extends jdk.jfr.Event {
+
+    public static final String BORROW = "borrow";
+    public static final String RETURN = "return";
+    public static final String APPROVE_RETURN = "approve-return";
+
+    @Label("Transition")
+    String transition;
+    @Label("Book Id")
+    int bookId;
+    @Label("User Id")
+    @Description("Borrower for borrow and return, owner for a return approval")
+    int userId;
+    @Label("History Id")
+    int historyId;
+
+    public void complete(String transition, Integer bookId, Integer userId, Integer historyId) {
+        end();
+        if (shouldCommit()) {
+            this.transition = transition;
+            this.bookId = bookId;
+            this.userId = userId;
+            this.historyId = historyId;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A book cover file read (mapping a book) or write (upload)
+@Name("com.gichungasoftwares.book_network.CoverIo")
+@Label("Cover I/O")
+@Category({"Book Network", "Files"})
+@StackTrace(false)
+public class CoverIoEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+    @Label("Book Id")
+    int bookId;
+    @Label("User Id")
+    int userId;
+    @Label("Size")
+    @DataAmount
+    long bytes;
+    @Label("Success")
+    boolean success;
+
+    public void complete(String operation, Integer bookId, Integer userId, long bytes, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.bookId = bookId == null ? 0 : bookId;
+            this.userId = userId == null ? 0 : userId;
+            this.bytes = bytes;
+            this.success = success;
+            commit();
+        }
+    }
+}
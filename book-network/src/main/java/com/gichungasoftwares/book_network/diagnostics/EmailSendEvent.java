@@ -0,0 +1,28 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Template rendering and SMTP delivery of an email, on the @Async executor thread
+@Name("com.gichungasoftwares.book_network.EmailSend")
+@Label("Email Send")
+@Category({"Book Network", "Mailing"})
+@StackTrace(false)
+public class EmailSendEvent extends jdk.jfr.Event {
+
+    @Label("Template")
+    String template;
+    @Label("Sent")
+    boolean sent;
+
+    public void complete(String template, boolean sent) {
+        end();
+        if (shouldCommit()) {
+            this.template = template;
+            this.sent = sent;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// On demand JFR recording, open the dump with JDK Mission Control or `jfr print`.
+// Restricted to the ADMIN role by SecurityConfig
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Diagnostics")
+@RequestMapping("admin/jfr")
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @GetMapping
+    public ResponseEntity<FlightRecordingResponse> status() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    // maxAge as an ISO-8601 duration (PT30M), maxSize as a data size (100MB)
+    @PostMapping("/start")
+    public ResponseEntity<FlightRecordingResponse> start(
+            @RequestParam(name = "maxAge", required = false) Duration maxAge,
+            @RequestParam(name = "maxSize", required = false) String maxSize
+    ) {
+        return ResponseEntity.ok(flightRecorderService.start(maxAge, maxSize == null ? null : DataSize.parse(maxSize)));
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<FlightRecordingResponse> stop() {
+        return ResponseEntity.ok(flightRecorderService.stop());
+    }
+
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() {
+        Path file = flightRecorderService.dump();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Files.copy(file, outputStream);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+}
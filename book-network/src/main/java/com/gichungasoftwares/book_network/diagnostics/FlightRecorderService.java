@@ -0,0 +1,130 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import com.gichungasoftwares.book_network.exception.OperationNotPermittedException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+// One JFR recording at a time, kept in a ring buffer bounded by age and size,
+// so it can stay on and be dumped when production gets slow
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+    private static final String RECORDING_NAME = "book-network";
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS = List.of(
+            BorrowTransitionEvent.class,
+            CoverIoEvent.class,
+            JwtVerificationEvent.class,
+            EmailSendEvent.class
+    );
+
+    @Value("${application.diagnostics.jfr.start-on-boot:false}")
+    private boolean startOnBoot;
+    @Value("${application.diagnostics.jfr.settings:default}")
+    private String settings;
+    @Value("${application.diagnostics.jfr.max-age:30m}")
+    private Duration defaultMaxAge;
+    @Value("${application.diagnostics.jfr.max-size:100MB}")
+    private DataSize defaultMaxSize;
+
+    private Recording recording;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (startOnBoot) {
+            start(null, null);
+        }
+    }
+
+    public synchronized FlightRecordingResponse start(Duration maxAge, DataSize maxSize) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new OperationNotPermittedException("A flight recording is already running, stop it first");
+        }
+        closeRecording();
+        try {
+            // the "default" settings are the always-on profile of the JDK (about 1% overhead)
+            Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(maxAge == null ? defaultMaxAge : maxAge);
+            newRecording.setMaxSize((maxSize == null ? defaultMaxSize : maxSize).toBytes());
+            EVENTS.forEach(event -> newRecording.enable(event).withoutThreshold());
+            newRecording.start();
+            recording = newRecording;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JFR settings " + settings, e);
+        }
+        log.info("Flight recording started, max age {}, max size {} bytes", recording.getMaxAge(), recording.getMaxSize());
+        return toResponse(recording);
+    }
+
+    public synchronized FlightRecordingResponse stop() {
+        Recording current = currentRecording();
+        if (current.getState() == RecordingState.RUNNING) {
+            current.stop();
+            log.info("Flight recording stopped");
+        }
+        return toResponse(current);
+    }
+
+    public synchronized FlightRecordingResponse status() {
+        return toResponse(currentRecording());
+    }
+
+    // copy of the ring buffer as a .jfr file, the caller deletes it
+    public synchronized Path dump() {
+        Recording current = currentRecording();
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            current.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording currentRecording() {
+        if (recording == null) {
+            throw new OperationNotPermittedException("No flight recording was started");
+        }
+        return recording;
+    }
+
+    private FlightRecordingResponse toResponse(Recording recording) {
+        Duration maxAge = recording.getMaxAge();
+        return FlightRecordingResponse.builder()
+                .name(recording.getName())
+                .state(recording.getState().name())
+                .startTime(recording.getStartTime())
+                .maxAgeSeconds(maxAge == null ? null : maxAge.toSeconds())
+                .maxSizeBytes(recording.getMaxSize())
+                .sizeBytes(recording.getSize())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FlightRecordingResponse {
+    private String name;
+    private String state;
+    private Instant startTime;
+    private Long maxAgeSeconds;
+    private long maxSizeBytes;
+    private long sizeBytes;
+}
@@ -0,0 +1,28 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Token parsing, user load and validation done by JwtAuthenticationFilter
+@Name("com.gichungasoftwares.book_network.JwtVerification")
+@Label("JWT Verification")
+@Category({"Book Network", "Security"})
+@StackTrace(false)
+public class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Outcome")
+    String outcome;
+    @Label("User Id")
+    int userId;
+
+    public void complete(String outcome, Integer userId) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            this.userId = userId == null ? 0 : userId;
+            commit();
+        }
+    }
+}
@@ -13,12 +13,13 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_feedback_book_id", columnList = "book_id, id"))
 public class Feedback extends BaseEntity {
 
     private Double note; // 1-5 stars
     private String comment;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
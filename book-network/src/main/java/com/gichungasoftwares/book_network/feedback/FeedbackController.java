@@ -1,5 +1,6 @@
 package com.gichungasoftwares.book_network.feedback;
 
+import com.gichungasoftwares.book_network.common.CursorPageResponse;
 import com.gichungasoftwares.book_network.common.PageResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+// ?fields= prunes the feedback responses (FieldSetResponseBodyAdvice), there is no work behind them to skip
 @RestController
 @RequestMapping("feedbacks")
 @RequiredArgsConstructor
@@ -32,4 +34,15 @@ public class FeedbackController {
     ) {
         return ResponseEntity.ok(feedbackService.findAllFeedbackByBook(bookId, page, size, connectedUser));
     }
+
+    // cursor paged variant, pass back nextCursor to get the following page
+    @GetMapping("/book/{book-id}/cursor")
+    public ResponseEntity<CursorPageResponse<FeedbackResponse>> findAllFeedbackByBookWithCursor(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "cursor", required = false) Integer cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(feedbackService.findAllFeedbackByBookWithCursor(bookId, cursor, size, connectedUser));
+    }
 }
@@ -1,10 +1,13 @@
 package com.gichungasoftwares.book_network.feedback;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
+
 public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
 
 @Query("""
@@ -13,4 +16,14 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
        WHERE feedback.book.id = :bookId
        """)
     Page<Feedback> findAllByBookId(Integer bookId, Pageable pageable);
+
+    // keyset page, newest first: walks the (book_id, id) index without OFFSET or COUNT
+    @Query("""
+           SELECT feedback
+           FROM Feedback feedback
+           WHERE feedback.book.id = :bookId
+           AND feedback.id < :cursor
+           ORDER BY feedback.id DESC
+           """)
+    List<Feedback> findAllByBookIdBefore(Integer bookId, Integer cursor, Limit limit);
 }
@@ -1,5 +1,7 @@
 package com.gichungasoftwares.book_network.feedback;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.gichungasoftwares.book_network.common.FieldSet;
 import lombok.*;
 
 @Getter
@@ -7,6 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSet.FILTER)
 public class FeedbackResponse {
     private Double note;
     private String comment;
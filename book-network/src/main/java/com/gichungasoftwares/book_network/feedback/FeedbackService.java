@@ -2,17 +2,24 @@ package com.gichungasoftwares.book_network.feedback;
 
 import com.gichungasoftwares.book_network.book.Book;
 import com.gichungasoftwares.book_network.book.BookRepository;
+import com.gichungasoftwares.book_network.book.RatingHistogram;
+import com.gichungasoftwares.book_network.book.TopRatedBooks;
+import com.gichungasoftwares.book_network.cache.CacheInvalidationBus;
+import com.gichungasoftwares.book_network.common.CursorPageResponse;
 import com.gichungasoftwares.book_network.common.PageResponse;
 import com.gichungasoftwares.book_network.exception.OperationNotPermittedException;
+import com.gichungasoftwares.book_network.listing.BookListingProjector;
 import com.gichungasoftwares.book_network.user.User;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
@@ -23,7 +30,11 @@ public class FeedbackService {
     private final BookRepository bookRepository;
     private final FeedbackMapper feedbackMapper;
     private final FeedbackRepository feedbackRepository;
+    private final TopRatedBooks topRatedBooks;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final BookListingProjector bookListingProjector;
 
+    @Transactional // the feedback and the book rating counters are written together
     public Integer save(FeedbackRequest feedbackRequest, Authentication connectedUser) {
         Book book = bookRepository.findById(feedbackRequest.bookId())
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with ID:: " + feedbackRequest.bookId()));
@@ -38,9 +49,18 @@ public class FeedbackService {
             throw new OperationNotPermittedException("You cannot give feedback to your own book");
         }
         Feedback feedback = feedbackMapper.toFeedback(feedbackRequest);
-        return feedbackRepository.save(feedback).getId();
+        Integer feedbackId = feedbackRepository.save(feedback).getId();
+        if (feedback.getNote() != null) {
+            bookRepository.addRating(book.getId(), feedback.getNote(), RatingHistogram.starsOf(feedback.getNote()));
+            // re-read the counters the update just changed
+            bookRepository.findRatedBookById(book.getId()).ifPresent(topRatedBooks::update);
+            cacheInvalidationBus.bookChanged(book.getId());
+            bookListingProjector.bookChanged(book.getId());
+        }
+        return feedbackId;
     }
 
+    @Transactional(readOnly = true)
     public PageResponse<FeedbackResponse> findAllFeedbackByBook(Integer bookId, int page, int size, Authentication connectedUser) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
         User user = ((User) connectedUser.getPrincipal());
@@ -51,11 +71,36 @@ public class FeedbackService {
         return new PageResponse<>(
                 feedbackResponses,
                 feedbacks.getNumber(),
-                feedbacks.getNumber(),
+                feedbacks.getSize(),
                 feedbacks.getTotalElements(),
                 feedbacks.getTotalPages(),
                 feedbacks.isFirst(),
                 feedbacks.isLast()
         );
     }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<FeedbackResponse> findAllFeedbackByBookWithCursor(Integer bookId, Integer cursor, int size, Authentication connectedUser) {
+        if (size <= 0) {
+            throw new OperationNotPermittedException("The page size must be greater than 0");
+        }
+        User user = ((User) connectedUser.getPrincipal());
+        // fetch one more than requested to know whether another page exists
+        List<Feedback> feedbacks = feedbackRepository.findAllByBookIdBefore(
+                bookId,
+                cursor == null ? Integer.MAX_VALUE : cursor,
+                Limit.of(size + 1)
+        );
+        boolean last = feedbacks.size() <= size;
+        List<Feedback> page = last ? feedbacks : feedbacks.subList(0, size);
+        List<FeedbackResponse> feedbackResponses = page.stream()
+                .map(f -> feedbackMapper.toFeedbackResponse(f, user.getUser_id()))
+                .toList();
+        return new CursorPageResponse<>(
+                feedbackResponses,
+                size,
+                last ? null : page.get(page.size() - 1).getId(),
+                last
+        );
+    }
 }
@@ -0,0 +1,75 @@
+package com.gichungasoftwares.book_network.file;
+
+import com.gichungasoftwares.book_network.profiling.RequestProfile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// Latency and size of the cover file reads and writes. FileUtils is static,
+// so the global registry (which Spring Boot registers its registries in) is used.
+public final class CoverIoMetrics {
+
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    private CoverIoMetrics() {
+    }
+
+    public static void record(String operation, long nanos, long bytes, boolean success) {
+        RequestProfile.recordFileIo(nanos, bytes);
+        Timer.builder("book.cover.io")
+                .description("Time spent reading or writing book cover files")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "failure")
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            DistributionSummary.builder("book.cover.io.bytes")
+                    .description("Size of the book cover files read or written")
+                    .baseUnit("bytes")
+                    .tag("operation", operation)
+                    .register(Metrics.globalRegistry)
+                    .record(bytes);
+        }
+    }
+
+    // Adds up the time spent in the reads of the wrapped stream: a file copied to the response is read
+    // between the writes, only the reads are file I/O
+    public static final class TimedInputStream extends FilterInputStream {
+
+        private long nanos;
+
+        public TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long startedAt = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                nanos += System.nanoTime() - startedAt;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long startedAt = System.nanoTime();
+            try {
+                return super.read(buffer, offset, length);
+            } finally {
+                nanos += System.nanoTime() - startedAt;
+            }
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+    }
+}
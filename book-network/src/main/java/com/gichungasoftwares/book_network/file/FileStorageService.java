@@ -1,5 +1,7 @@
 package com.gichungasoftwares.book_network.file;
 
+import com.gichungasoftwares.book_network.diagnostics.CoverIoEvent;
+import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,11 +25,16 @@ public class FileStorageService {
     @Value("${application.file.uploads.photos-output-path}")
     private String fileUploadPath;
 
+    @Observed(name = "book.cover.write")
     public String saveFile(
             @NotNull MultipartFile sourceFile,
             @NotNull Integer userId) {
         final String fileUploadSubPath = "users" + separator + userId;
-        return uploadFile(sourceFile, fileUploadSubPath);
+        CoverIoEvent event = new CoverIoEvent();
+        event.begin();
+        String savedPath = uploadFile(sourceFile, fileUploadSubPath);
+        event.complete(CoverIoMetrics.WRITE, null, userId, savedPath == null ? 0 : sourceFile.getSize(), savedPath != null);
+        return savedPath;
     }
 
     private String uploadFile(
@@ -47,12 +54,21 @@ public class FileStorageService {
         final String fileExtension = getFileExtension(sourceFile.getOriginalFilename());
         String targetFilePath = finalUploadPath + separator + System.currentTimeMillis() + "." + fileExtension;
         Path targetPath = Paths.get(targetFilePath);
+        long startedAt = System.nanoTime();
         try {
             Files.write(targetPath, sourceFile.getBytes());
+            CoverIoMetrics.record(CoverIoMetrics.WRITE, System.nanoTime() - startedAt, sourceFile.getSize(), true);
             log.info("File saved to " + targetFilePath);
             return targetFilePath;
         } catch (IOException e) {
+            CoverIoMetrics.record(CoverIoMetrics.WRITE, System.nanoTime() - startedAt, 0, false);
             log.error("File was not saved ", e);
+            // do not leave a partially written file behind
+            try {
+                Files.deleteIfExists(targetPath);
+            } catch (IOException ex) {
+                log.warn("Could not remove the partially written file {}", targetFilePath);
+            }
         }
         return null;
     }
@@ -5,8 +5,10 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 @Slf4j
 public class FileUtils {
@@ -15,9 +17,26 @@ public class FileUtils {
         if (StringUtils.isBlank(fileUrl)) {
             return null;
         }
+        long startedAt = System.nanoTime();
         try {
             Path filePath = new File(fileUrl).toPath();
-            return Files.readAllBytes(filePath);
+            byte[] content = Files.readAllBytes(filePath);
+            CoverIoMetrics.record(CoverIoMetrics.READ, System.nanoTime() - startedAt, content.length, true);
+            return content;
+        } catch (IOException e) {
+            CoverIoMetrics.record(CoverIoMetrics.READ, System.nanoTime() - startedAt, 0, false);
+            log.warn("No file found in the path {}", fileUrl);
+        }
+        return null;
+    }
+
+    // open the file for streaming instead of loading it whole, the caller closes the channel
+    public static FileChannel openFileChannel(String fileUrl) {
+        if (StringUtils.isBlank(fileUrl)) {
+            return null;
+        }
+        try {
+            return FileChannel.open(new File(fileUrl).toPath(), StandardOpenOption.READ);
         } catch (IOException e) {
             log.warn("No file found in the path {}", fileUrl);
         }
@@ -0,0 +1,197 @@
+package com.gichungasoftwares.book_network.file;
+
+import com.gichungasoftwares.book_network.book.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Removes uploaded files that are no longer referenced by any book cover
+// (replaced covers, partial writes of failed uploads)
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrphanFileCleaner {
+
+    private final BookRepository bookRepository;
+
+    @Value("${application.file.uploads.photos-output-path}")
+    private String fileUploadPath;
+    // deleting files is opt-in
+    @Value("${application.file.uploads.cleanup.enabled:false}")
+    private boolean enabled;
+    @Value("${application.file.uploads.cleanup.grace-period:24h}")
+    private Duration gracePeriod;
+    @Value("${application.file.uploads.cleanup.parallelism:2}")
+    private int parallelism;
+    @Value("${application.file.uploads.cleanup.max-deletes-per-second:20}")
+    private int maxDeletesPerSecond;
+
+    @Scheduled(cron = "${application.file.uploads.cleanup.cron:0 30 3 * * *}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        final Path usersFolder = Paths.get(fileUploadPath).resolve("users");
+        if (!Files.isDirectory(usersFolder)) {
+            return;
+        }
+        final long startedAt = System.nanoTime();
+        final Instant cutOff = Instant.now().minus(gracePeriod);
+        final DeleteRateLimiter rateLimiter = new DeleteRateLimiter(maxDeletesPerSecond);
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger deleted = new AtomicInteger();
+
+        List<Path> userFolders;
+        try (Stream<Path> folders = Files.list(usersFolder)) {
+            userFolders = folders.filter(Files::isDirectory).toList();
+        } catch (IOException e) {
+            log.warn("Could not list the uploads folder {}", usersFolder, e);
+            return;
+        }
+
+        // each user folder is swept independently, a small dedicated pool keeps
+        // the walk off the common pool used by request handling
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> userFolders.parallelStream()
+                    .forEach(folder -> sweepFolder(folder, cutOff, rateLimiter, scanned, deleted))
+            ).get();
+        } catch (Exception e) {
+            log.error("Orphaned file sweep failed", e);
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Orphaned file sweep scanned {} files and deleted {} in {} ms",
+                scanned.get(), deleted.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private void sweepFolder(
+            Path folder,
+            Instant cutOff,
+            DeleteRateLimiter rateLimiter,
+            AtomicInteger scanned,
+            AtomicInteger deleted
+    ) {
+        Set<Path> referenced;
+        try {
+            referenced = referencedCovers(folder);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the covers of the uploads folder {}, skipping it", folder, e);
+            return;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!isExpiredFile(file, cutOff)) {
+                    continue;
+                }
+                scanned.incrementAndGet();
+                if (!referenced.contains(resolve(file))) {
+                    rateLimiter.acquire();
+                    if (delete(file)) {
+                        deleted.incrementAndGet();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not walk the uploads folder {}", folder, e);
+        }
+    }
+
+    // a cover is the path FileStorageService returned, it may be relative, use either separator or name the
+    // folder through a link: the covers mentioning the folder are compared as resolved paths, not as strings.
+    // A cover uploaded during the sweep is newer than the grace period, its file is not a candidate.
+    private Set<Path> referencedCovers(Path folder) {
+        // _ matches either separator, a cover of another folder matched too is harmless
+        String pattern = "%users_" + escapeLike(folder.getFileName().toString()) + "_%";
+        return bookRepository.findAllCoversLike(pattern).stream()
+                .map(OrphanFileCleaner::resolve)
+                .collect(Collectors.toSet());
+    }
+
+    private static Path resolve(String cover) {
+        try {
+            return resolve(Paths.get(cover));
+        } catch (InvalidPathException e) {
+            return Paths.get("").toAbsolutePath();
+        }
+    }
+
+    // the real path of an existing file, the normalized absolute path of a missing one
+    private static Path resolve(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private boolean isExpiredFile(Path file, Instant cutOff) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(cutOff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean delete(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                log.debug("Deleted orphaned file {}", file);
+                return true;
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete orphaned file {}", file, e);
+        }
+        return false;
+    }
+
+    // spaces deletes evenly so the sweep never bursts against request I/O
+    private static class DeleteRateLimiter {
+        private final long intervalNanos;
+        private long nextSlot = System.nanoTime();
+
+        DeleteRateLimiter(int permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long waitFor;
+            synchronized (this) {
+                long now = System.nanoTime();
+                nextSlot = Math.max(nextSlot, now) + intervalNanos;
+                waitFor = nextSlot - intervalNanos - now;
+            }
+            if (waitFor > 0) {
+                LockSupport.parkNanos(waitFor);
+            }
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.gichungasoftwares.book_network.history;
 
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
@@ -49,12 +54,13 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
            """)
     Optional<BookTransactionHistory> findByBookIdAndOwnerId(@Param("bookId") Integer bookId, @Param("userId") Integer userId);
 
+    // the totals of the two lists come from the user's counters (UserActivityService)
     @Query("""
            SELECT history
            FROM BookTransactionHistory history
            WHERE history.user.user_id = :userId
            """)
-    Page<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
+    List<BookTransactionHistory> findAllBorrowedBooks(Pageable pageable, Integer userId);
 
     @Query("""
            SELECT history
@@ -62,6 +68,102 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
            WHERE history.book.createdBy = :userId
            AND history.isReturned = true
            """)
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+    List<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+           SELECT history
+           FROM BookTransactionHistory history
+           JOIN FETCH history.book
+           WHERE history.user.user_id = :userId
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "50"))
+    Stream<BookTransactionHistory> streamAllBorrowedBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+           SELECT COUNT(history)
+           FROM BookTransactionHistory history
+           WHERE history.user.user_id = :userId
+           """)
+    long countAllBorrowedBooks(Integer userId);
+
+    @Query("""
+           SELECT history
+           FROM BookTransactionHistory history
+           JOIN FETCH history.book
+           WHERE history.book.createdBy = :userId
+           AND history.isReturned = true
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "50"))
+    Stream<BookTransactionHistory> streamAllReturnedBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+           SELECT COUNT(history)
+           FROM BookTransactionHistory history
+           WHERE history.book.createdBy = :userId
+           AND history.isReturned = true
+           """)
+    long countAllReturnedBooks(Integer userId);
+
+    // borrows of the user not closed by an approved return
+    @Query("""
+           SELECT COUNT(history)
+           FROM BookTransactionHistory history
+           WHERE history.user.user_id = :userId
+           AND history.isReturnApproved = false
+           """)
+    long countOpenLoans(Integer userId);
+
+    // returns of the owner's books waiting for the owner to approve them
+    @Query("""
+           SELECT COUNT(history)
+           FROM BookTransactionHistory history
+           WHERE history.book.createdBy = :userId
+           AND history.isReturned = true
+           AND history.isReturnApproved = false
+           """)
+    long countPendingApprovals(Integer userId);
+
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.history.BorrowRecord(history.id, history.user.user_id, history.book.id)
+           FROM BookTransactionHistory history
+           ORDER BY history.user.user_id, history.id
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<BorrowRecord> streamAllBorrowsByUser();
+
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.history.BorrowRecord(history.id, history.user.user_id, history.book.id)
+           FROM BookTransactionHistory history
+           WHERE history.id > :historyId
+           ORDER BY history.id
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<BorrowRecord> streamAllBorrowsAfter(Integer historyId);
+
+    // the earlier borrows of the users who borrowed after historyId, in one query for the whole catch-up
+    @Query("""
+           SELECT new com.gichungasoftwares.book_network.history.BorrowRecord(history.id, history.user.user_id, history.book.id)
+           FROM BookTransactionHistory history
+           WHERE history.id <= :historyId
+           AND history.user.user_id IN (
+               SELECT later.user.user_id
+               FROM BookTransactionHistory later
+               WHERE later.id > :historyId
+           )
+           ORDER BY history.id
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<BorrowRecord> streamEarlierBorrowsOfUsersBorrowingAfter(Integer historyId);
+
+    // each book once, the latest borrowed last
+    @Query("""
+           SELECT history.book.id
+           FROM BookTransactionHistory history
+           WHERE history.user.user_id = :userId
+           AND history.id < :historyId
+           GROUP BY history.book.id
+           ORDER BY MAX(history.id)
+           """)
+    List<Integer> findBorrowedBookIdsBefore(Integer userId, Integer historyId);
 
 }
@@ -0,0 +1,9 @@
+package com.gichungasoftwares.book_network.history;
+
+// who borrowed which book, read without loading the entities
+public record BorrowRecord(
+        Integer historyId,
+        Integer userId,
+        Integer bookId
+) {
+}
@@ -0,0 +1,57 @@
+package com.gichungasoftwares.book_network.listing;
+
+import com.gichungasoftwares.book_network.book.RatingHistogram;
+import jakarta.persistence.Embedded;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A displayable (shareable, not archived) book as the browse pages show it, the owner name, the rating
+// and the availability included, so a page is one scan of created_date on this table.
+// Every field of BookResponse is a column, the pages do not read the book table.
+// Written only by BookListingProjector, a few moments behind the book, user, feedback and loan tables.
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_listing", indexes = {
+        @Index(name = "idx_book_listing_created_date", columnList = "created_date"),
+        @Index(name = "idx_book_listing_owner_id", columnList = "owner_id")
+})
+public class BookListing {
+
+    @Id
+    private Integer bookId;
+    private String title;
+    private String authorName;
+    private String isbn;
+    private String synopsis;
+    // the browse pages leave out the reader's own books
+    private Integer ownerId;
+    private String ownerName;
+    @Embedded
+    private RatingHistogram rating;
+    private String bookCover;
+    private boolean isArchived;
+    private boolean isShareable;
+    // no loan of the book waiting for its return to be approved
+    private boolean available;
+    private LocalDateTime createdDate;
+    private LocalDateTime projectedAt;
+
+    // rounded like Book.getRate
+    @Transient
+    public double getRate() {
+        if (rating == null || rating.getRatingCount() == 0) {
+            return 0.0;
+        }
+        return Math.round(rating.average() * 10.0) / 10.0;
+    }
+}
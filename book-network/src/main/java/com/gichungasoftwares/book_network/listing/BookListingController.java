@@ -0,0 +1,24 @@
+package com.gichungasoftwares.book_network.listing;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Full rebuild of the browse read model, after changes made outside the application or a lost node.
+// Restricted to the ADMIN role by SecurityConfig
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Book listing")
+@RequestMapping("admin/listing")
+public class BookListingController {
+
+    private final BookListingProjector bookListingProjector;
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<BookListingRebuildResponse> rebuild() {
+        return ResponseEntity.ok(bookListingProjector.rebuild());
+    }
+}
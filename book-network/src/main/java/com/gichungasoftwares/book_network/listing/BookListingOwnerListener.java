@@ -0,0 +1,24 @@
+package com.gichungasoftwares.book_network.listing;
+
+import com.gichungasoftwares.book_network.user.User;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// The listing rows carry the owner name: an updated user has the listed books of their own projected again.
+// A JPA entity listener created by Spring (Hibernate's bean container); the projector is looked up on the
+// first update, it needs the entity manager factory this listener is built with.
+@Component
+public class BookListingOwnerListener {
+
+    private final ObjectProvider<BookListingProjector> bookListingProjector;
+
+    public BookListingOwnerListener(ObjectProvider<BookListingProjector> bookListingProjector) {
+        this.bookListingProjector = bookListingProjector;
+    }
+
+    @PostUpdate
+    public void userUpdated(User user) {
+        bookListingProjector.getObject().ownerChanged(user.getUser_id());
+    }
+}
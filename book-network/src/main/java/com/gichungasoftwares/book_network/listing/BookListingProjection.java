@@ -0,0 +1,13 @@
+package com.gichungasoftwares.book_network.listing;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookListingProjection {
+
+    int project(Collection<Integer> bookIds);
+
+    int rebuild();
+
+    List<Integer> findOutOfDateBookIds();
+}
@@ -0,0 +1,109 @@
+package com.gichungasoftwares.book_network.listing;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+// Writes the listing rows of books from the tables: the rows are deleted and inserted again from the
+// current book, owner and loans, a book no longer displayable is only deleted. Read-write transactions,
+// so the rows come from the primary: a replica may not have the change yet.
+// A row inserted meanwhile by another node projecting the same book is kept (ON CONFLICT DO NOTHING),
+// in SQL: Hibernate only emulates ON CONFLICT of HQL inserts for a single row on H2.
+class BookListingProjectionImpl implements BookListingProjection {
+
+    private static final String INSERT_PROJECTED = """
+            INSERT INTO book_listing (book_id, title, author_name, isbn, synopsis, owner_id, owner_name,
+                                      one_star, two_stars, three_stars, four_stars, five_stars, rating_count, rating_sum,
+                                      book_cover, is_archived, is_shareable, available, created_date, projected_at)
+            SELECT book.id, book.title, book.author_name, book.isbn, book.synopsis, book_owner.user_id,
+                   CONCAT(book_owner.firstname, ' ', book_owner.lastname),
+                   book.one_star, book.two_stars, book.three_stars, book.four_stars, book.five_stars,
+                   book.rating_count, book.rating_sum,
+                   book.book_cover, book.is_archived, book.is_shareable,
+                   NOT EXISTS (SELECT 1 FROM book_transaction_history history
+                               WHERE history.book_id = book.id AND history.is_return_approved = false),
+                   book.created_date, LOCALTIMESTAMP
+            FROM book
+            JOIN _user book_owner ON book_owner.user_id = book.owner_id
+            WHERE book.is_archived = false
+            AND book.is_shareable = true
+            %s
+            ON CONFLICT DO NOTHING
+            """;
+
+    // displayable books whose row is missing or differs from the tables, and rows of deleted books
+    private static final String SELECT_OUT_OF_DATE = """
+            SELECT book.id
+            FROM book
+            JOIN _user book_owner ON book_owner.user_id = book.owner_id
+            LEFT JOIN book_listing listing ON listing.book_id = book.id
+            WHERE CASE WHEN book.is_archived = false AND book.is_shareable = true
+                       THEN listing.book_id IS NULL
+                            OR listing.title IS DISTINCT FROM book.title
+                            OR listing.author_name IS DISTINCT FROM book.author_name
+                            OR listing.isbn IS DISTINCT FROM book.isbn
+                            OR listing.synopsis IS DISTINCT FROM book.synopsis
+                            OR listing.book_cover IS DISTINCT FROM book.book_cover
+                            OR listing.owner_id <> book_owner.user_id
+                            OR listing.owner_name IS DISTINCT FROM CONCAT(book_owner.firstname, ' ', book_owner.lastname)
+                            OR listing.rating_count <> book.rating_count
+                            OR listing.rating_sum <> book.rating_sum
+                            OR listing.one_star <> book.one_star
+                            OR listing.two_stars <> book.two_stars
+                            OR listing.three_stars <> book.three_stars
+                            OR listing.four_stars <> book.four_stars
+                            OR listing.five_stars <> book.five_stars
+                            OR listing.available = (EXISTS (SELECT 1 FROM book_transaction_history history
+                                                            WHERE history.book_id = book.id
+                                                            AND history.is_return_approved = false))
+                       ELSE listing.book_id IS NOT NULL
+                  END
+            UNION ALL
+            SELECT listing.book_id
+            FROM book_listing listing
+            WHERE NOT EXISTS (SELECT 1 FROM book WHERE book.id = listing.book_id)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int project(Collection<Integer> bookIds) {
+        entityManager.createQuery("DELETE FROM BookListing listing WHERE listing.bookId IN :bookIds")
+                .setParameter("bookIds", bookIds)
+                .executeUpdate();
+        return insert(INSERT_PROJECTED.formatted("AND book.id IN :bookIds"))
+                .setParameter("bookIds", bookIds)
+                .executeUpdate();
+    }
+
+    // one transaction, the browse pages read the previous rows until it commits
+    @Override
+    @Transactional
+    public int rebuild() {
+        entityManager.createQuery("DELETE FROM BookListing").executeUpdate();
+        return insert(INSERT_PROJECTED.formatted("")).executeUpdate();
+    }
+
+    // nothing is written, a read-write transaction all the same so the tables are read on the primary
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Integer> findOutOfDateBookIds() {
+        return ((List<Number>) entityManager.createNativeQuery(SELECT_OUT_OF_DATE).getResultList()).stream()
+                .map(Number::intValue)
+                .toList();
+    }
+
+    // only book_listing is written, the second level cache regions are kept
+    private NativeQuery<?> insert(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(BookListing.class);
+    }
+}
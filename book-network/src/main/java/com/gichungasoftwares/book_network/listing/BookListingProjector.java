@@ -0,0 +1,182 @@
+package com.gichungasoftwares.book_network.listing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps book_listing, the read model of the browse pages, behind the writes. The committed changes of
+// a book, its rating and its loans queue the book id; every projection interval the queued books are
+// projected again from the tables, a batch in one DELETE and one INSERT ... SELECT. The pages lag the
+// writes by about the interval, book.listing.lag measures it from the commit to the projection.
+// An owner's change (a new name) queues the listed books of the owner.
+// The queue is in memory: after a start the books that changed meanwhile are found by comparing the table
+// with the book tables, off the startup path, and queued like any change. POST /admin/listing/rebuild
+// rewrites the whole table.
+@Component
+@Slf4j
+public class BookListingProjector {
+
+    private final BookListingRepository listingRepository;
+    private final Timer lag;
+    private final Timer rebuilds;
+
+    // book id -> System.nanoTime() of its oldest change not projected yet
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+    // owner id -> System.nanoTime() of the change, its listed books are queued by the next projection
+    private final Map<Integer, Long> pendingOwners = new ConcurrentHashMap<>();
+    // a lock rather than synchronized, the projection runs JDBC and may be on a virtual thread
+    private final ReentrantLock projecting = new ReentrantLock();
+
+    @Value("${application.listing.batch-size:500}")
+    private int batchSize;
+    @Value("${application.listing.catch-up-on-startup:true}")
+    private boolean catchUpOnStartup;
+
+    public BookListingProjector(BookListingRepository listingRepository, MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.lag = Timer.builder("book.listing.lag")
+                .description("Time from a committed change to its projection in book_listing")
+                .register(meterRegistry);
+        this.rebuilds = Timer.builder("book.listing.rebuild").register(meterRegistry);
+        Gauge.builder("book.listing.pending", pending, Map::size)
+                .description("Changed books waiting for their projection")
+                .register(meterRegistry);
+    }
+
+    public void bookChanged(Integer bookId) {
+        afterCommit(() -> pending.putIfAbsent(bookId, System.nanoTime()));
+    }
+
+    public void ownerChanged(Integer ownerId) {
+        afterCommit(() -> pendingOwners.putIfAbsent(ownerId, System.nanoTime()));
+    }
+
+    // a rolled back change has nothing to project
+    private static void afterCommit(Runnable queue) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.run();
+                }
+            });
+        } else {
+            queue.run();
+        }
+    }
+
+    // returns once every change queued before the call is projected (or requeued after a failure)
+    @Scheduled(fixedDelayString = "${application.listing.projection-interval:PT0.2S}")
+    public void project() {
+        projecting.lock();
+        try {
+            if (!queueOwnersBooks()) {
+                return;
+            }
+            while (!pending.isEmpty()) {
+                Map<Integer, Long> batch = drain();
+                try {
+                    listingRepository.project(batch.keySet());
+                } catch (DataAccessException e) {
+                    log.warn("Book listing not projected, retrying with the next run: {}", e.toString());
+                    batch.forEach((bookId, changedAt) -> pending.merge(bookId, changedAt, Math::min));
+                    return;
+                }
+                long projectedAt = System.nanoTime();
+                batch.values().forEach(changedAt -> lag.record(projectedAt - changedAt, TimeUnit.NANOSECONDS));
+            }
+        } finally {
+            projecting.unlock();
+        }
+    }
+
+    // the owners stay queued when their books cannot be read
+    private boolean queueOwnersBooks() {
+        if (pendingOwners.isEmpty()) {
+            return true;
+        }
+        Map<Integer, Long> owners = new HashMap<>(pendingOwners);
+        try {
+            Long changedAt = owners.values().stream().min(Long::compare).orElseThrow();
+            listingRepository.findAllBookIdsByOwnerIds(owners.keySet())
+                    .forEach(bookId -> pending.merge(bookId, changedAt, Math::min));
+        } catch (DataAccessException e) {
+            log.warn("Book listing owners not projected, retrying with the next run: {}", e.toString());
+            return false;
+        }
+        owners.forEach(pendingOwners::remove);
+        return true;
+    }
+
+    // a book changed again after it is drained is queued again, its projection reads the later change
+    private Map<Integer, Long> drain() {
+        Map<Integer, Long> batch = new HashMap<>();
+        Iterator<Integer> bookIds = pending.keySet().iterator();
+        while (bookIds.hasNext() && batch.size() < batchSize) {
+            Integer bookId = bookIds.next();
+            Long changedAt = pending.remove(bookId);
+            if (changedAt != null) {
+                batch.put(bookId, changedAt);
+            }
+        }
+        return batch;
+    }
+
+    // on the @Async executor, the application is ready and serves the current rows meanwhile
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (catchUpOnStartup) {
+            catchUp();
+        }
+    }
+
+    // queues the books whose row is missing, out of date or of a deleted book; the next projection writes them
+    public int catchUp() {
+        long startedAt = System.nanoTime();
+        List<Integer> bookIds;
+        try {
+            bookIds = listingRepository.findOutOfDateBookIds();
+        } catch (DataAccessException e) {
+            log.warn("Book listing not caught up, POST /admin/listing/rebuild rewrites it: {}", e.toString());
+            return 0;
+        }
+        bookIds.forEach(bookId -> pending.putIfAbsent(bookId, startedAt));
+        log.info("Book listing caught up, {} books queued in {} ms",
+                bookIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        return bookIds.size();
+    }
+
+    // the queued changes stay queued, projecting them again after the rebuild is harmless
+    public BookListingRebuildResponse rebuild() {
+        projecting.lock();
+        try {
+            long startedAt = System.nanoTime();
+            int books = listingRepository.rebuild();
+            long duration = System.nanoTime() - startedAt;
+            rebuilds.record(duration, TimeUnit.NANOSECONDS);
+            log.info("Book listing rebuilt with {} books in {} ms", books, TimeUnit.NANOSECONDS.toMillis(duration));
+            return new BookListingRebuildResponse(books, TimeUnit.NANOSECONDS.toMillis(duration));
+        } finally {
+            projecting.unlock();
+        }
+    }
+}
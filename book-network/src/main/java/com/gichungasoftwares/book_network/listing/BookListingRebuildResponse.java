@@ -0,0 +1,4 @@
+package com.gichungasoftwares.book_network.listing;
+
+public record BookListingRebuildResponse(int books, long durationMillis) {
+}
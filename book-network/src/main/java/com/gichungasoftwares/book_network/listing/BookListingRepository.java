@@ -0,0 +1,47 @@
+package com.gichungasoftwares.book_network.listing;
+
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Every row is displayable, the browse queries only leave out the reader's own books
+public interface BookListingRepository extends JpaRepository<BookListing, Integer>, BookListingProjection {
+
+    @Query("""
+           SELECT listing
+           FROM BookListing listing
+           WHERE listing.ownerId <> :userId
+           """)
+    Page<BookListing> findAllDisplayableBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+           SELECT listing
+           FROM BookListing listing
+           WHERE listing.ownerId <> :userId
+           """)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "50"))
+    Stream<BookListing> streamAllDisplayableBooks(Pageable pageable, Integer userId);
+
+    @Query("""
+           SELECT COUNT(listing)
+           FROM BookListing listing
+           WHERE listing.ownerId <> :userId
+           """)
+    long countAllDisplayableBooks(Integer userId);
+
+    @Query("""
+           SELECT listing.bookId
+           FROM BookListing listing
+           WHERE listing.ownerId IN :ownerIds
+           """)
+    List<Integer> findAllBookIdsByOwnerIds(Collection<Integer> ownerIds);
+}
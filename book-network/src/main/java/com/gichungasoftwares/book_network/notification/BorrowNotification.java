@@ -0,0 +1,25 @@
+package com.gichungasoftwares.book_network.notification;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.user.User;
+
+import java.time.Instant;
+
+// Sent to the owner when a book is borrowed or returned, and to the borrower when the return is approved.
+// The type is the SSE event name.
+public record BorrowNotification(
+        String type,
+        Integer bookId,
+        String bookTitle,
+        Integer historyId,
+        String by,
+        Instant at
+) {
+    public static final String BORROWED = "borrowed";
+    public static final String RETURNED = "returned";
+    public static final String RETURN_APPROVED = "return-approved";
+
+    public static BorrowNotification of(String type, Book book, Integer historyId, User by) {
+        return new BorrowNotification(type, book.getId(), book.getTitle(), historyId, by.fullName(), Instant.now());
+    }
+}
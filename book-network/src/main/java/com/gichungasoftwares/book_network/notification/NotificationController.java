@@ -0,0 +1,26 @@
+package com.gichungasoftwares.book_network.notification;
+
+import com.gichungasoftwares.book_network.user.User;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("notifications")
+@RequiredArgsConstructor
+@Tag(name = "Notification")
+public class NotificationController {
+    private final NotificationHub notificationHub;
+
+    // borrowed and returned events for the books of the connected user, return-approved for their borrows
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(Authentication connectedUser) {
+        User user = ((User) connectedUser.getPrincipal());
+        return notificationHub.subscribe(user.getUser_id());
+    }
+}
@@ -0,0 +1,137 @@
+package com.gichungasoftwares.book_network.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process fan-out of borrow notifications to the open SSE connections of each user, so clients
+// wait for changes instead of polling the borrowed and returned pages. An idle connection holds no
+// thread, only its emitter and a bounded buffer; writes run on the task executor.
+@Component
+public class NotificationHub {
+
+    private final Executor executor;
+    // copied on write, publishing and heartbeats iterate without locking
+    private final Map<Integer, List<NotificationSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections;
+    private final Counter dropped;
+
+    @Value("${application.notifications.timeout:30m}")
+    private Duration timeout;
+    @Value("${application.notifications.buffer-size:32}")
+    private int bufferSize;
+    @Value("${application.notifications.max-connections-per-user:4}")
+    private int maxConnectionsPerUser;
+    @Value("${application.notifications.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    public NotificationHub(
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+            MeterRegistry meterRegistry
+    ) {
+        this.executor = executor;
+        this.connections = meterRegistry.gauge("notifications.connections", new AtomicInteger());
+        this.dropped = meterRegistry.counter("notifications.dropped");
+    }
+
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        NotificationSubscription subscription = new NotificationSubscription(userId, emitter, bufferSize, executor, dropped);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+        // a clean end of the stream, the client reconnects after the retry delay
+        emitter.onTimeout(emitter::complete);
+        add(subscription);
+        // sent right away so the client sees the connection open
+        subscription.offer(SseEmitter.event().comment("connected").reconnectTime(reconnectDelay.toMillis()));
+        return emitter;
+    }
+
+    // the recipient only hears about the change once it is visible to the query it would have polled
+    public void publishAfterCommit(Integer userId, BorrowNotification notification) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId, notification);
+                }
+            });
+        } else {
+            publish(userId, notification);
+        }
+    }
+
+    public void publish(Integer userId, BorrowNotification notification) {
+        for (NotificationSubscription subscription : subscriptions.getOrDefault(userId, List.of())) {
+            // an event builder is consumed when it is sent, each connection gets its own
+            subscription.offer(SseEmitter.event()
+                    .name(notification.type())
+                    .data(notification, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // proxies and load balancers close connections that stay silent, and a failed write is how
+    // a client that went away without closing is found
+    @Scheduled(
+            fixedRateString = "${application.notifications.heartbeat-interval:PT25S}",
+            initialDelayString = "${application.notifications.heartbeat-interval:PT25S}"
+    )
+    public void heartbeat() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+            if (subscription.isClosed()) {
+                remove(subscription);
+            } else {
+                subscription.heartbeat();
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(NotificationSubscription::close));
+    }
+
+    // past the limit the user's oldest connection is closed, usually one left behind by a reconnect
+    private void add(NotificationSubscription subscription) {
+        List<NotificationSubscription> evicted = new ArrayList<>();
+        subscriptions.compute(subscription.userId(), (userId, current) -> {
+            List<NotificationSubscription> updated = current == null ? new ArrayList<>() : new ArrayList<>(current);
+            while (updated.size() >= maxConnectionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            updated.add(subscription);
+            return List.copyOf(updated);
+        });
+        connections.addAndGet(1 - evicted.size());
+        evicted.forEach(NotificationSubscription::close);
+    }
+
+    private void remove(NotificationSubscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId(), (userId, current) -> {
+            if (!current.contains(subscription)) {
+                return current;
+            }
+            connections.decrementAndGet();
+            List<NotificationSubscription> updated = new ArrayList<>(current);
+            updated.remove(subscription);
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+}
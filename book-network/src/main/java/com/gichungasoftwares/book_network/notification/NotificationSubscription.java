@@ -0,0 +1,95 @@
+package com.gichungasoftwares.book_network.notification;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One SSE connection: a bounded buffer of pending events, written by at most one drain task at a time.
+// When the client reads slower than events arrive the oldest pending events are dropped.
+class NotificationSubscription {
+
+    private final Integer userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+    private final Executor executor;
+    private final Counter dropped;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    NotificationSubscription(Integer userId, SseEmitter emitter, int bufferSize, Executor executor, Counter dropped) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+        this.dropped = dropped;
+    }
+
+    Integer userId() {
+        return userId;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void offer(SseEmitter.SseEventBuilder event) {
+        if (closed) {
+            return;
+        }
+        while (!buffer.offer(event)) {
+            if (buffer.poll() != null) {
+                dropped.increment();
+            }
+        }
+        scheduleDrain();
+    }
+
+    // only an idle connection needs one, pending events show the connection is alive when they are sent
+    void heartbeat() {
+        if (buffer.isEmpty()) {
+            offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    void close() {
+        closed = true;
+        buffer.clear();
+        emitter.complete();
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            close();
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = buffer.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the emitter is already complete
+            close();
+        } finally {
+            draining.set(false);
+        }
+        // an event offered after the last poll but before the flag was cleared
+        if (!closed && !buffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gichungasoftwares.book_network.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Time, statements and allocations of the request being handled on the current thread.
+// Only sampled requests have a profile, the record methods are a thread local read otherwise.
+// Work done on other threads (@Async, streamed bodies) is not attributed to the request.
+public final class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    private final long startedAt = System.nanoTime();
+    private final long allocatedAtStart = currentThreadAllocatedBytes();
+    private long authNanos;
+    private int statements;
+    private long sqlNanos;
+    private int fileOperations;
+    private long fileNanos;
+    private long fileBytes;
+
+    private RequestProfile() {
+    }
+
+    public static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void recordAuth(long nanos) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.authNanos += nanos;
+        }
+    }
+
+    public static void recordStatement(long nanos) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.statements++;
+            profile.sqlNanos += nanos;
+        }
+    }
+
+    public static void recordFileIo(long nanos, long bytes) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.fileOperations++;
+            profile.fileNanos += nanos;
+            profile.fileBytes += bytes;
+        }
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    public long authNanos() {
+        return authNanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long sqlNanos() {
+        return sqlNanos;
+    }
+
+    public int fileOperations() {
+        return fileOperations;
+    }
+
+    public long fileNanos() {
+        return fileNanos;
+    }
+
+    public long fileBytes() {
+        return fileBytes;
+    }
+
+    // -1 when the JVM does not measure per thread allocations
+    public long allocatedBytes() {
+        long allocated = currentThreadAllocatedBytes();
+        return allocated < 0 || allocatedAtStart < 0 ? -1 : allocated - allocatedAtStart;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return ALLOCATIONS == null ? -1 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean allocations
+                && allocations.isThreadAllocatedMemorySupported()
+                && allocations.isThreadAllocatedMemoryEnabled()) {
+            return allocations;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.gichungasoftwares.book_network.profiling;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Nothing is registered unless application.profiling.enabled is true
+@Configuration
+@ConditionalOnProperty(prefix = "application.profiling", name = "enabled", havingValue = "true")
+public class RequestProfilingConfig {
+
+    // first filter, so the security chain and the JWT user load are part of the profile
+    @Bean
+    public FilterRegistrationBean<RequestProfilingFilter> requestProfilingFilter(
+            @Value("${application.profiling.sample-rate:0.01}") double sampleRate
+    ) {
+        FilterRegistrationBean<RequestProfilingFilter> registration =
+                new FilterRegistrationBean<>(new RequestProfilingFilter(sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlTimingSessionListener() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingSessionListener.class.getName());
+    }
+}
@@ -0,0 +1,130 @@
+package com.gichungasoftwares.book_network.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Profiles a sample of the requests: auth filter, SQL and cover file time, statement count and
+// bytes allocated on the request thread. The breakdown is sent as a Server-Timing header when
+// the body starts being written (the rest is mapping and serialization) and logged when the request ends.
+@Slf4j
+@RequiredArgsConstructor
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final double sampleRate;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RequestProfile profile = RequestProfile.start();
+        ServerTimingResponse profiledResponse = new ServerTimingResponse(response, profile);
+        try {
+            filterChain.doFilter(request, profiledResponse);
+        } finally {
+            // nothing was written (empty body, async dispatch started), the header can still be added
+            profiledResponse.addServerTiming();
+            RequestProfile.end();
+            log.info("request-profile method={} uri={} status={} total_ms={} auth_ms={} sql_count={} sql_ms={} file_count={} file_ms={} file_bytes={} allocated_bytes={}",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    response.getStatus(),
+                    millis(profile.totalNanos()),
+                    millis(profile.authNanos()),
+                    profile.statements(),
+                    millis(profile.sqlNanos()),
+                    profile.fileOperations(),
+                    millis(profile.fileNanos()),
+                    profile.fileBytes(),
+                    profile.allocatedBytes());
+        }
+    }
+
+    static String serverTiming(RequestProfile profile) {
+        StringBuilder header = new StringBuilder()
+                .append("auth;dur=").append(millis(profile.authNanos()))
+                .append(", db;dur=").append(millis(profile.sqlNanos()))
+                .append(";desc=\"").append(profile.statements()).append(" statements\"")
+                .append(", file;dur=").append(millis(profile.fileNanos()))
+                .append(";desc=\"").append(profile.fileBytes()).append(" bytes\"");
+        long allocated = profile.allocatedBytes();
+        if (allocated >= 0) {
+            header.append(", alloc;desc=\"").append(allocated).append(" bytes\"");
+        }
+        return header.append(", total;dur=").append(millis(profile.totalNanos())).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    // headers can only be added until the response is committed, so the header is set on the first body write
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestProfile profile;
+        private boolean headerAdded;
+
+        ServerTimingResponse(HttpServletResponse response, RequestProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        void addServerTiming() {
+            if (!headerAdded && !isCommitted()) {
+                headerAdded = true;
+                addHeader(SERVER_TIMING, serverTiming(profile));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gichungasoftwares.book_network.profiling;
+
+import org.hibernate.SessionEventListener;
+
+// Created by Hibernate for every session (hibernate.session.events.auto), a session is used by one thread
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long executeStartedAt;
+    private long batchStartedAt;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestProfile.recordStatement(System.nanoTime() - executeStartedAt);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestProfile.recordStatement(System.nanoTime() - batchStartedAt);
+    }
+}
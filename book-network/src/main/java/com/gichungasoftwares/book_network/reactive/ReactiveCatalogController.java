@@ -0,0 +1,80 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.common.PageResponse;
+import com.gichungasoftwares.book_network.feedback.FeedbackResponse;
+import com.gichungasoftwares.book_network.user.User;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The catalog reads of BookController and FeedbackController on the reactive stack. The request thread
+// is released while the database works; ?stream=true answers application/x-ndjson, one item per line.
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Reactive catalog")
+@RequestMapping("reactive")
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveCatalogController {
+
+    private final ReactiveCatalogService catalogService;
+
+    @GetMapping("/books")
+    public Mono<PageResponse<BookResponse>> findAllBooks(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser
+    ) {
+        return catalogService.findAllBooks(page, size, FieldSet.parse(fields), userId(connectedUser));
+    }
+
+    @GetMapping(value = "/books", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookResponse> streamAllBooks(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "fields", required = false) String fields,
+            Authentication connectedUser
+    ) {
+        return catalogService.streamAllBooks(page, size, FieldSet.parse(fields), userId(connectedUser));
+    }
+
+    @GetMapping("/books/{book-id}")
+    public Mono<BookResponse> findBookById(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "fields", required = false) String fields
+    ) {
+        return catalogService.findById(bookId, FieldSet.parse(fields));
+    }
+
+    @GetMapping("/feedbacks/book/{book-id}")
+    public Mono<PageResponse<FeedbackResponse>> findAllFeedbackByBook(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return catalogService.findAllFeedbackByBook(bookId, page, size, userId(connectedUser));
+    }
+
+    @GetMapping(value = "/feedbacks/book/{book-id}", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<FeedbackResponse> streamAllFeedbackByBook(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return catalogService.streamAllFeedbackByBook(bookId, page, size, userId(connectedUser));
+    }
+
+    // read on the request thread, the security context is not carried to the driver threads
+    private static Integer userId(Authentication connectedUser) {
+        return ((User) connectedUser.getPrincipal()).getUser_id();
+    }
+}
@@ -0,0 +1,129 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.book.RatingHistogram;
+import com.gichungasoftwares.book_network.feedback.Feedback;
+import com.gichungasoftwares.book_network.user.User;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The catalog reads of BookRepository and FeedbackRepository in SQL over R2DBC. Rows are mapped to
+// detached entities so the responses come from the same mappers; the owner is joined, not loaded.
+@Repository
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCatalogRepository {
+
+    private static final String BOOK_COLUMNS = """
+            SELECT book.id, book.title, book.author_name, book.isbn, book.synopsis, book.book_cover,
+                   book.is_archived, book.is_shareable,
+                   book.one_star, book.two_stars, book.three_stars, book.four_stars, book.five_stars,
+                   book.rating_count, book.rating_sum,
+                   book_owner.firstname, book_owner.lastname
+            FROM book
+            JOIN _user book_owner ON book_owner.user_id = book.owner_id
+            """;
+    private static final String DISPLAYABLE = """
+            WHERE book.is_archived = false
+            AND book.is_shareable = true
+            AND book.created_by <> :userId
+            """;
+
+    private final DatabaseClient reactiveReadDatabaseClient;
+
+    // rows per round trip, the next ones are fetched when the response asks for them
+    @Value("${application.reactive.fetch-size:64}")
+    private int fetchSize;
+
+    public Flux<Book> findAllDisplayableBooks(Pageable pageable, Integer userId) {
+        return reactiveReadDatabaseClient.sql(BOOK_COLUMNS + DISPLAYABLE + """
+                        ORDER BY book.created_date DESC
+                        LIMIT :limit OFFSET :offset
+                        """)
+                .bind("userId", userId)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveCatalogRepository::toBook)
+                .all();
+    }
+
+    public Mono<Long> countAllDisplayableBooks(Integer userId) {
+        return reactiveReadDatabaseClient.sql("SELECT COUNT(*) AS total FROM book " + DISPLAYABLE)
+                .bind("userId", userId)
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    public Mono<Book> findById(Integer bookId) {
+        return reactiveReadDatabaseClient.sql(BOOK_COLUMNS + "WHERE book.id = :bookId")
+                .bind("bookId", bookId)
+                .map(ReactiveCatalogRepository::toBook)
+                .one();
+    }
+
+    public Flux<Feedback> findAllFeedbackByBook(Integer bookId, Pageable pageable) {
+        return reactiveReadDatabaseClient.sql("""
+                        SELECT feedback.note, feedback.comment, feedback.created_by
+                        FROM feedback
+                        WHERE feedback.book_id = :bookId
+                        ORDER BY feedback.created_date DESC
+                        LIMIT :limit OFFSET :offset
+                        """)
+                .bind("bookId", bookId)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveCatalogRepository::toFeedback)
+                .all();
+    }
+
+    public Mono<Long> countAllFeedbackByBook(Integer bookId) {
+        return reactiveReadDatabaseClient.sql("SELECT COUNT(*) AS total FROM feedback WHERE feedback.book_id = :bookId")
+                .bind("bookId", bookId)
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    // the builder of a @SuperBuilder entity is generic, bound to Feedback by the return type
+    private static Feedback toFeedback(Readable row) {
+        return Feedback.builder()
+                .note(row.get("note", Double.class))
+                .comment(row.get("comment", String.class))
+                .createdBy(row.get("created_by", Integer.class))
+                .build();
+    }
+
+    private static Book toBook(Readable row) {
+        return Book.builder()
+                .id(row.get("id", Integer.class))
+                .title(row.get("title", String.class))
+                .authorName(row.get("author_name", String.class))
+                .isbn(row.get("isbn", String.class))
+                .synopsis(row.get("synopsis", String.class))
+                .bookCover(row.get("book_cover", String.class))
+                .isArchived(Boolean.TRUE.equals(row.get("is_archived", Boolean.class)))
+                .isShareable(Boolean.TRUE.equals(row.get("is_shareable", Boolean.class)))
+                .rating(RatingHistogram.builder()
+                        .oneStar(row.get("one_star", Integer.class))
+                        .twoStars(row.get("two_stars", Integer.class))
+                        .threeStars(row.get("three_stars", Integer.class))
+                        .fourStars(row.get("four_stars", Integer.class))
+                        .fiveStars(row.get("five_stars", Integer.class))
+                        .ratingCount(row.get("rating_count", Integer.class))
+                        .ratingSum(row.get("rating_sum", Double.class))
+                        .build())
+                .owner(User.builder()
+                        .firstname(row.get("firstname", String.class))
+                        .lastname(row.get("lastname", String.class))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.book.BookMapper;
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.common.PageResponse;
+import com.gichungasoftwares.book_network.feedback.FeedbackMapper;
+import com.gichungasoftwares.book_network.feedback.FeedbackResponse;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+// Same responses as BookService.findAllBooks / findById and FeedbackService.findAllFeedbackByBook,
+// without a thread waiting on the database: the streamed variants emit each item as the driver reads it
+// and only read further rows when the response has written the previous ones
+@Service
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCatalogService {
+
+    // covers read at the same time, they are still written in the page order
+    private static final int COVER_READS = 4;
+
+    private final ReactiveCatalogRepository catalogRepository;
+    private final BookMapper bookMapper;
+    private final FeedbackMapper feedbackMapper;
+
+    public Flux<BookResponse> streamAllBooks(int page, int size, FieldSet fields, Integer userId) {
+        return toBookResponses(catalogRepository.findAllDisplayableBooks(PageRequest.of(page, size), userId), fields);
+    }
+
+    // the page and the count run at the same time, on two connections
+    public Mono<PageResponse<BookResponse>> findAllBooks(int page, int size, FieldSet fields, Integer userId) {
+        return Mono.zip(
+                streamAllBooks(page, size, fields, userId).collectList(),
+                catalogRepository.countAllDisplayableBooks(userId)
+        ).map(result -> toPageResponse(result.getT1(), PageRequest.of(page, size), result.getT2()));
+    }
+
+    public Mono<BookResponse> findById(Integer bookId, FieldSet fields) {
+        return toBookResponses(catalogRepository.findById(bookId).flux(), fields)
+                .next()
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("No book found with the ID:: " + bookId)));
+    }
+
+    public Flux<FeedbackResponse> streamAllFeedbackByBook(Integer bookId, int page, int size, Integer userId) {
+        return catalogRepository.findAllFeedbackByBook(bookId, PageRequest.of(page, size))
+                .map(feedback -> feedbackMapper.toFeedbackResponse(feedback, userId));
+    }
+
+    public Mono<PageResponse<FeedbackResponse>> findAllFeedbackByBook(Integer bookId, int page, int size, Integer userId) {
+        return Mono.zip(
+                streamAllFeedbackByBook(bookId, page, size, userId).collectList(),
+                catalogRepository.countAllFeedbackByBook(bookId)
+        ).map(result -> toPageResponse(result.getT1(), PageRequest.of(page, size), result.getT2()));
+    }
+
+    // the covers are files read with blocking IO, kept off the driver threads
+    private Flux<BookResponse> toBookResponses(Flux<Book> books, FieldSet fields) {
+        if (!fields.includes("cover")) {
+            return books.map(book -> bookMapper.toBookResponse(book, fields));
+        }
+        return books.flatMapSequential(
+                book -> Mono.fromCallable(() -> bookMapper.toBookResponse(book, fields)).subscribeOn(Schedulers.boundedElastic()),
+                COVER_READS
+        );
+    }
+
+    private static <T> PageResponse<T> toPageResponse(List<T> content, Pageable pageable, long total) {
+        Page<T> page = new PageImpl<>(content, pageable, total);
+        return new PageResponse<>(
+                content,
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages(),
+                page.isFirst(),
+                page.isLast()
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+// The R2DBC pool of the reactive catalog reads. A connection is only taken while a query runs and the
+// driver reads the rows as the HTTP response asks for them, so a few connections serve many requests.
+// The pool is not a bean: a ConnectionFactory bean turns off the auto-configured JDBC DataSource.
+@Configuration
+@ConditionalOnProperty(prefix = "application.reactive", name = "enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveReadDatabaseClient(
+            @Value("${application.reactive.url}") String url,
+            @Value("${application.reactive.username:${spring.datasource.username:}}") String username,
+            @Value("${application.reactive.password:${spring.datasource.password:}}") String password,
+            @Value("${application.reactive.pool.initial-size:2}") int initialSize,
+            @Value("${application.reactive.pool.max-size:8}") int maxSize,
+            @Value("${application.reactive.pool.max-acquire-time:5s}") Duration maxAcquireTime
+    ) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-read")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import java.io.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Item to item co-occurrence counts: for each book, how many users also borrowed each other book.
+// Each neighbour map is guarded by its own monitor so updates on different books never contend.
+// The book map itself and the last history id are guarded by a read write lock: borrows of known books
+// and lookups share the read lock, a first borrow of a book (new keys) and the snapshot take the write lock,
+// so a snapshot holds exactly the borrows up to its last history id.
+public class CoBorrowModel {
+
+    private static final int SNAPSHOT_MAGIC = 0x42534E43; // "BSNC"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final IntObjectHashMap<IntIntHashMap> neighbours;
+    private final AtomicInteger lastHistoryId;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoBorrowModel(IntObjectHashMap<IntIntHashMap> neighbours, int lastHistoryId) {
+        this.neighbours = neighbours;
+        this.lastHistoryId = new AtomicInteger(lastHistoryId);
+    }
+
+    public static CoBorrowModel empty() {
+        return new CoBorrowModel(new IntObjectHashMap<>(), 0);
+    }
+
+    // a user borrowed bookId for the first time, pair it with every book they borrowed before
+    public void addBorrow(int bookId, int[] previousBookIds, int historyId) {
+        lock.readLock().lock();
+        try {
+            if (neighbours.get(bookId) != null && allKnown(previousBookIds)) {
+                count(bookId, previousBookIds, historyId);
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            neighbours.computeIfAbsent(bookId, id -> new IntIntHashMap());
+            for (int previous : previousBookIds) {
+                neighbours.computeIfAbsent(previous, id -> new IntIntHashMap());
+            }
+            count(bookId, previousBookIds, historyId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean allKnown(int[] bookIds) {
+        for (int bookId : bookIds) {
+            if (neighbours.get(bookId) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // under the read or the write lock, every book is in the map
+    private void count(int bookId, int[] previousBookIds, int historyId) {
+        IntIntHashMap bookNeighbours = neighbours.get(bookId);
+        for (int previous : previousBookIds) {
+            if (previous == bookId) {
+                continue;
+            }
+            synchronized (bookNeighbours) {
+                bookNeighbours.addTo(previous, 1);
+            }
+            IntIntHashMap previousNeighbours = neighbours.get(previous);
+            synchronized (previousNeighbours) {
+                previousNeighbours.addTo(bookId, 1);
+            }
+        }
+        lastHistoryId.accumulateAndGet(historyId, Math::max);
+    }
+
+    public int[] related(int bookId, int size) {
+        IntIntHashMap bookNeighbours;
+        lock.readLock().lock();
+        try {
+            bookNeighbours = neighbours.get(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (bookNeighbours == null) {
+            return new int[0];
+        }
+        synchronized (bookNeighbours) {
+            return bookNeighbours.topKeys(size);
+        }
+    }
+
+    public int lastHistoryId() {
+        return lastHistoryId.get();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return neighbours.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // layout: magic, version, last history id, book count, then per book: id, neighbour count, (id, count)*
+    // serialized in memory under the write lock, borrows wait for the copy only, not for the disk
+    public void writeSnapshot(OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(1 << 16);
+        lock.writeLock().lock();
+        try {
+            DataOutputStream out = new DataOutputStream(copy);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(lastHistoryId.get());
+            out.writeInt(neighbours.size());
+            neighbours.forEach((bookId, bookNeighbours) -> {
+                writeInt(out, bookId);
+                writeInt(out, bookNeighbours.size());
+                bookNeighbours.forEach((neighbour, count) -> {
+                    writeInt(out, neighbour);
+                    writeInt(out, count);
+                });
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        copy.writeTo(outputStream);
+        outputStream.flush();
+    }
+
+    // in memory, a ByteArrayOutputStream never fails
+    private static void writeInt(DataOutputStream out, int value) {
+        try {
+            out.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CoBorrowModel readSnapshot(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a co-borrow snapshot or unsupported version");
+        }
+        int lastHistoryId = in.readInt();
+        int books = in.readInt();
+        IntObjectHashMap<IntIntHashMap> neighbours = new IntObjectHashMap<>(books);
+        for (int i = 0; i < books; i++) {
+            int bookId = in.readInt();
+            int count = in.readInt();
+            IntIntHashMap bookNeighbours = new IntIntHashMap(count);
+            for (int j = 0; j < count; j++) {
+                bookNeighbours.addTo(in.readInt(), in.readInt());
+            }
+            neighbours.put(bookId, bookNeighbours);
+        }
+        return new CoBorrowModel(neighbours, lastHistoryId);
+    }
+}
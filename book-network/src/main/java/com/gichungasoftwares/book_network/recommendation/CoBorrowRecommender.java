@@ -0,0 +1,241 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import com.gichungasoftwares.book_network.history.BookTransactionHistoryRepository;
+import com.gichungasoftwares.book_network.history.BorrowRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// "Borrowed together" recommendations built from the borrow history
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoBorrowRecommender {
+
+    private final BookTransactionHistoryRepository transactionHistoryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${application.recommendation.co-borrow.snapshot-path:./recommendation/co-borrow.bin}")
+    private String snapshotPath;
+    @Value("${application.recommendation.co-borrow.max-basket-size:200}")
+    private int maxBasketSize;
+
+    private volatile CoBorrowModel model = CoBorrowModel.empty();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        long startedAt = System.currentTimeMillis();
+        CoBorrowModel snapshot = loadSnapshot();
+        if (snapshot == null) {
+            model = build();
+        } else {
+            model = snapshot;
+            catchUp(snapshot);
+        }
+        log.info("Co-borrow model ready with {} books in {} ms", model.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    public int[] related(int bookId, int size) {
+        return model.related(bookId, size);
+    }
+
+    // call after a new borrow is saved
+    public void onBorrow(Integer historyId, Integer userId, Integer bookId) {
+        List<Integer> previousBookIds = transactionHistoryRepository.findBorrowedBookIdsBefore(userId, historyId);
+        if (previousBookIds.contains(bookId)) {
+            // pairs are counted once per user, a borrow again adds nothing
+            return;
+        }
+        int[] basket = latestBooks(previousBookIds, maxBasketSize - 1);
+        afterCommit(() -> model.addBorrow(bookId, basket, historyId));
+    }
+
+    // a rolled back borrow never reaches the model
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${application.recommendation.co-borrow.snapshot-interval:PT10M}",
+            initialDelayString = "${application.recommendation.co-borrow.snapshot-interval:PT10M}"
+    )
+    public void writeSnapshot() {
+        Path target = Paths.get(snapshotPath);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                model.writeSnapshot(out);
+            }
+            // readers never see a half written snapshot
+            Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write the co-borrow snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    private CoBorrowModel loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return CoBorrowModel.readSnapshot(in);
+        } catch (IOException e) {
+            log.warn("Could not read the co-borrow snapshot {}, rebuilding", snapshotPath, e);
+            return null;
+        }
+    }
+
+    // apply the borrows saved after the snapshot was written, in history order; the books each user
+    // borrowed before are read once for all of them and grow with the replayed borrows
+    private void catchUp(CoBorrowModel snapshot) {
+        int lastHistoryId = snapshot.lastHistoryId();
+        readOnlyTransaction().executeWithoutResult(status -> {
+            Map<Integer, Set<Integer>> borrowedBooks = new HashMap<>();
+            try (Stream<BorrowRecord> borrows = transactionHistoryRepository.streamEarlierBorrowsOfUsersBorrowingAfter(lastHistoryId)) {
+                borrows.forEach(borrow -> borrowedBooks.computeIfAbsent(borrow.userId(), id -> new LinkedHashSet<>()).add(borrow.bookId()));
+            }
+            try (Stream<BorrowRecord> borrows = transactionHistoryRepository.streamAllBorrowsAfter(lastHistoryId)) {
+                borrows.forEach(borrow -> {
+                    Set<Integer> previousBookIds = borrowedBooks.computeIfAbsent(borrow.userId(), id -> new LinkedHashSet<>());
+                    if (!previousBookIds.contains(borrow.bookId())) {
+                        snapshot.addBorrow(borrow.bookId(), latestBooks(previousBookIds, maxBasketSize - 1), borrow.historyId());
+                        previousBookIds.add(borrow.bookId());
+                    }
+                });
+            }
+        });
+    }
+
+    private CoBorrowModel build() {
+        List<int[]> baskets = new ArrayList<>();
+        int[] lastHistoryId = new int[1];
+        readOnlyTransaction().executeWithoutResult(status -> {
+            // rows come grouped by user, each group becomes one basket of distinct books
+            try (Stream<BorrowRecord> borrows = transactionHistoryRepository.streamAllBorrowsByUser()) {
+                Integer currentUser = null;
+                Set<Integer> basket = new LinkedHashSet<>();
+                for (BorrowRecord borrow : (Iterable<BorrowRecord>) borrows::iterator) {
+                    if (!Objects.equals(borrow.userId(), currentUser)) {
+                        addBasket(baskets, basket);
+                        currentUser = borrow.userId();
+                    }
+                    basket.add(borrow.bookId());
+                    lastHistoryId[0] = Math.max(lastHistoryId[0], borrow.historyId());
+                }
+                addBasket(baskets, basket);
+            }
+        });
+        IntObjectHashMap<IntIntHashMap> neighbours = ForkJoinPool.commonPool().invoke(new CoOccurrenceTask(baskets, 0, baskets.size()));
+        return new CoBorrowModel(neighbours, lastHistoryId[0]);
+    }
+
+    private void addBasket(List<int[]> baskets, Set<Integer> basket) {
+        if (basket.size() > 1) {
+            baskets.add(latestBooks(basket, maxBasketSize));
+        }
+        basket.clear();
+    }
+
+    // very heavy borrowers are quadratic, keep their latest books only; bookIds are in borrow order
+    private static int[] latestBooks(Collection<Integer> bookIds, int limit) {
+        return bookIds.stream().skip(Math.max(0, bookIds.size() - limit)).mapToInt(Integer::intValue).toArray();
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    // counts the pairs of a range of baskets, halves are counted in parallel and merged
+    private static class CoOccurrenceTask extends RecursiveTask<IntObjectHashMap<IntIntHashMap>> {
+
+        private static final int THRESHOLD = 1_000;
+
+        private final List<int[]> baskets;
+        private final int from;
+        private final int to;
+
+        CoOccurrenceTask(List<int[]> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntObjectHashMap<IntIntHashMap> compute() {
+            if (to - from <= THRESHOLD) {
+                IntObjectHashMap<IntIntHashMap> counts = new IntObjectHashMap<>();
+                for (int i = from; i < to; i++) {
+                    int[] basket = baskets.get(i);
+                    for (int a : basket) {
+                        IntIntHashMap bookNeighbours = counts.computeIfAbsent(a, id -> new IntIntHashMap());
+                        for (int b : basket) {
+                            if (a != b) {
+                                bookNeighbours.addTo(b, 1);
+                            }
+                        }
+                    }
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            CoOccurrenceTask left = new CoOccurrenceTask(baskets, from, middle);
+            left.fork();
+            IntObjectHashMap<IntIntHashMap> right = new CoOccurrenceTask(baskets, middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private static IntObjectHashMap<IntIntHashMap> merge(IntObjectHashMap<IntIntHashMap> a, IntObjectHashMap<IntIntHashMap> b) {
+            IntObjectHashMap<IntIntHashMap> larger = a.size() >= b.size() ? a : b;
+            IntObjectHashMap<IntIntHashMap> smaller = larger == a ? b : a;
+            smaller.forEach((bookId, bookNeighbours) -> {
+                IntIntHashMap target = larger.get(bookId);
+                if (target == null) {
+                    larger.put(bookId, bookNeighbours);
+                } else if (target.size() >= bookNeighbours.size()) {
+                    target.addAll(bookNeighbours);
+                } else {
+                    bookNeighbours.addAll(target);
+                    larger.put(bookId, bookNeighbours);
+                }
+            });
+            return larger;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import java.util.Arrays;
+
+// Open addressing int -> int map without boxing, used for the per book co-occurrence counts.
+// Keys are book ids, 0 marks a free slot and cannot be used as a key. Not thread safe.
+public class IntIntHashMap {
+
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    public IntIntHashMap() {
+        this(4);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int get(int key) {
+        if (key == FREE) {
+            return 0;
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public void addTo(int key, int delta) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("0 cannot be used as a key");
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public void addAll(IntIntHashMap other) {
+        other.forEach(this::addTo);
+    }
+
+    public void forEach(IntIntConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // the keys with the highest values, highest first
+    public int[] topKeys(int limit) {
+        // value in the high bits, key in the low bits, so one sort orders by value
+        long[] entries = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                entries[i++] = ((long) values[slot] << 32) | (keys[slot] & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(entries);
+        int count = Math.min(limit, entries.length);
+        int[] top = new int[count];
+        for (int j = 0; j < count; j++) {
+            top[j] = (int) entries[entries.length - 1 - j];
+        }
+        return top;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            int key = oldKeys[slot];
+            if (key != FREE) {
+                int target = mix(key) & mask;
+                while (keys[target] != FREE) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = key;
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(4, capacity);
+    }
+
+    // spread sequential ids over the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,121 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import java.util.function.IntFunction;
+
+// Open addressing int -> object map without boxing the keys, used for the per book neighbour maps.
+// Keys are book ids, 0 marks a free slot and cannot be used as a key. Not thread safe.
+public class IntObjectHashMap<V> {
+
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    @FunctionalInterface
+    public interface IntObjectConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    public IntObjectHashMap() {
+        this(4);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == FREE) {
+            return null;
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public void put(int key, V value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("0 cannot be used as a key");
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public V computeIfAbsent(int key, IntFunction<V> create) {
+        V value = get(key);
+        if (value == null) {
+            value = create.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<V> consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                consumer.accept(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            int key = oldKeys[slot];
+            if (key != FREE) {
+                int target = mix(key) & mask;
+                while (keys[target] != FREE) {
+                    target = (target + 1) & mask;
+                }
+                keys[target] = key;
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(4, capacity);
+    }
+
+    // spread sequential ids over the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
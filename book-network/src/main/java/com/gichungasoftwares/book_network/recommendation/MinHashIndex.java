@@ -0,0 +1,167 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Locality sensitive hashing over MinHash signatures: books whose shingle sets have a high
+// Jaccard similarity share at least one band bucket with high probability, so a lookup only
+// scores the books found in its own buckets instead of the whole catalog.
+public class MinHashIndex {
+
+    public static final int BANDS = 32;
+    public static final int ROWS = 4;
+    public static final int SIGNATURE_LENGTH = BANDS * ROWS;
+
+    // buckets of very common shingle sets (e.g. the same generic synopsis) are not worth scanning
+    private static final int MAX_BUCKET_SCAN = 1_000;
+
+    // fixed seed so signatures are the same across restarts and nodes
+    private static final long[] A = new long[SIGNATURE_LENGTH];
+    private static final long[] B = new long[SIGNATURE_LENGTH];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            A[i] = random.nextLong() | 1L;
+            B[i] = random.nextLong();
+        }
+    }
+
+    private final Map<Integer, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Integer>> buckets = new ConcurrentHashMap<>();
+
+    public static int[] signature(Collection<String> shingles) {
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long hash = fnv1a(shingle);
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int value = (int) ((A[i] * hash + B[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // a book without shingles is not indexed: the signature of an empty set is the same for every blank text,
+    // they would all share their buckets and rank each other as identical
+    public void index(int bookId, Collection<String> shingles) {
+        if (shingles.isEmpty()) {
+            remove(bookId);
+        } else {
+            put(bookId, signature(shingles));
+        }
+    }
+
+    public void put(int bookId, int[] signature) {
+        // per book atomic, so buckets never keep a stale membership of the same book
+        signatures.compute(bookId, (id, previous) -> {
+            if (previous != null) {
+                leaveBuckets(bookId, previous);
+            }
+            for (int band = 0; band < BANDS; band++) {
+                // per bucket atomic, a bucket emptied meanwhile is never added to after its removal
+                buckets.compute(bandKey(signature, band), (key, bucket) -> {
+                    Set<Integer> members = bucket != null ? bucket : ConcurrentHashMap.<Integer>newKeySet();
+                    members.add(bookId);
+                    return members;
+                });
+            }
+            return signature;
+        });
+    }
+
+    public void remove(int bookId) {
+        signatures.computeIfPresent(bookId, (id, previous) -> {
+            leaveBuckets(bookId, previous);
+            return null;
+        });
+    }
+
+    // empty buckets are removed, the map only holds the buckets of indexed books
+    private void leaveBuckets(int bookId, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfPresent(bandKey(signature, band), (key, bucket) -> {
+                bucket.remove(bookId);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    public void clear() {
+        signatures.clear();
+        buckets.clear();
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    // the candidates sharing a bucket with the book, most similar first
+    public int[] similar(int bookId, int size) {
+        int[] signature = signatures.get(bookId);
+        if (signature == null) {
+            return new int[0];
+        }
+        Set<Integer> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            Set<Integer> bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null && bucket.size() <= MAX_BUCKET_SCAN) {
+                candidates.addAll(bucket);
+            }
+        }
+        candidates.remove(bookId);
+
+        // estimated similarity in the high bits, book id in the low bits, so one sort ranks them
+        long[] ranked = new long[candidates.size()];
+        int i = 0;
+        for (Integer candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            ranked[i++] = ((long) agreement(signature, other) << 32) | (candidate & 0xFFFFFFFFL);
+        }
+        Arrays.sort(ranked, 0, i);
+        int count = Math.min(size, i);
+        int[] similar = new int[count];
+        for (int j = 0; j < count; j++) {
+            similar[j] = (int) ranked[i - 1 - j];
+        }
+        return similar;
+    }
+
+    // number of equal positions, the MinHash estimate of the Jaccard similarity times the length
+    private static int agreement(int[] a, int[] b) {
+        if (b == null) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            hash = hash * 0x100000001B3L + signature[row];
+        }
+        return hash;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,118 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.book.BookRepository;
+import com.gichungasoftwares.book_network.book.BookText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// "More like this": MinHash signatures over the title, author and synopsis shingles
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimilarBooksIndex {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+
+    private final BookRepository bookRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MinHashIndex index = new MinHashIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        index.clear();
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookText> books = bookRepository.streamAllBookTexts()) {
+                List<BookText> chunk = new ArrayList<>(REBUILD_CHUNK_SIZE);
+                for (BookText book : (Iterable<BookText>) books::iterator) {
+                    chunk.add(book);
+                    if (chunk.size() == REBUILD_CHUNK_SIZE) {
+                        indexInParallel(chunk);
+                        chunk.clear();
+                    }
+                }
+                indexInParallel(chunk);
+            }
+        });
+        log.info("Similar books index rebuilt with {} books in {} ms", index.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    // call after a book is saved
+    public void index(Book book) {
+        Integer bookId = book.getId();
+        Set<String> shingles = shingles(book.getTitle(), book.getAuthorName(), book.getSynopsis());
+        afterCommit(() -> index.index(bookId, shingles));
+    }
+
+    // call after a book is deleted
+    public void remove(int bookId) {
+        afterCommit(() -> index.remove(bookId));
+    }
+
+    // a rolled back save never reaches the index
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    public int[] similar(int bookId, int size) {
+        return index.similar(bookId, size);
+    }
+
+    private void indexInParallel(List<BookText> books) {
+        // signatures are the cpu heavy part, the index itself is concurrent
+        books.parallelStream().forEach(book -> index.index(
+                book.id(),
+                shingles(book.title(), book.authorName(), book.synopsis())
+        ));
+    }
+
+    // title and author words are shingles of their own, the synopsis contributes word pairs
+    static Set<String> shingles(String title, String authorName, String synopsis) {
+        Set<String> shingles = new HashSet<>();
+        for (String word : words(title)) {
+            shingles.add("t:" + word);
+        }
+        for (String word : words(authorName)) {
+            shingles.add("a:" + word);
+        }
+        List<String> synopsisWords = words(synopsis);
+        for (int i = 0; i + 1 < synopsisWords.size(); i++) {
+            shingles.add("s:" + synopsisWords.get(i) + " " + synopsisWords.get(i + 1));
+        }
+        if (synopsisWords.size() == 1) {
+            shingles.add("s:" + synopsisWords.get(0));
+        }
+        return shingles;
+    }
+
+    private static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> word.length() > 1)
+                .toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.gichungasoftwares.book_network.role;
+
+import java.util.Optional;
+
+public interface RoleNaturalIdRepository {
+    Optional<Role> findByName(String role);
+}
@@ -0,0 +1,23 @@
+package com.gichungasoftwares.book_network.role;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Every registration looks up the USER role, served from the role natural id and entity caches
+class RoleNaturalIdRepositoryImpl implements RoleNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Role> findByName(String role) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Role.class)
+                .loadOptional(role);
+    }
+}
@@ -2,8 +2,6 @@ package com.gichungasoftwares.book_network.role;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
-
-public interface RoleRepository extends JpaRepository<Role, Integer> {
-    Optional<Role> findByName(String role);
+// findByName is a natural id lookup, see RoleNaturalIdRepositoryImpl
+public interface RoleRepository extends JpaRepository<Role, Integer>, RoleNaturalIdRepository {
 }
@@ -1,5 +1,10 @@
 package com.gichungasoftwares.book_network.security;
 
+import com.gichungasoftwares.book_network.diagnostics.JwtVerificationEvent;
+import com.gichungasoftwares.book_network.profiling.RequestProfile;
+import com.gichungasoftwares.book_network.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,6 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
@@ -40,35 +46,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             filterChain.doFilter(request, response);
             return;
         }
+        final String authHeader = request.getHeader(AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final long startedAt = System.nanoTime();
+        final String jwt = authHeader.substring(7);
+        // committed once, in the finally block, with the outcome of the verification
+        JwtVerificationEvent jwtEvent = new JwtVerificationEvent();
+        jwtEvent.begin();
+        // "error" unless the verification runs to its end, the timer and the event agree on it
+        String outcome = "error";
+        Integer eventUserId = null;
         try {
-            final String authHeader = request.getHeader(AUTHORIZATION);
-            final String jwt;
-            final String userEmail;
-
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-                if(jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authenticationToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            // parsing the subject, the user load (second level cache) and the validation against the user
+            Timer.Sample verification = Timer.start(meterRegistry);
+            try {
+                final String userEmail = jwtService.extractUsername(jwt);
+                if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                    boolean tokenValid = jwtService.isTokenValid(jwt, userDetails);
+                    eventUserId = userDetails instanceof User user ? user.getUser_id() : null;
+                    if(tokenValid) {
+                        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                        authenticationToken.setDetails(
+                                new WebAuthenticationDetailsSource().buildDetails(request)
+                        );
+                        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                    }
+                    outcome = tokenValid ? "valid" : "invalid";
+                } else {
+                    // no subject, or an authentication already set: nothing was verified
+                    outcome = "skipped";
                 }
+            } finally {
+                verification.stop(meterRegistry.timer("jwt.verification", "outcome", outcome));
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
+        } finally {
+            jwtEvent.complete(outcome, eventUserId);
         }
+        RequestProfile.recordAuth(System.nanoTime() - startedAt);
 
 
         // when we are sure the user is authenticated,
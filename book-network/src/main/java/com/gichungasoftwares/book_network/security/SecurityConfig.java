@@ -1,5 +1,6 @@
 package com.gichungasoftwares.book_network.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,7 +32,9 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req ->
-                        req.requestMatchers(
+                        // async dispatches (streamed responses) were already authorized on the initial request
+                        req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers(
                                 "/auth/**",
                                 "/v2/api-docs",
                                 "/v3/api-docs",
@@ -42,8 +45,11 @@ public class SecurityConfig {
                                 "/configuration/security",
                                 "/swagger-ui/**",
                                 "/webjars/**",
-                                "/swagger-ui.html"
+                                "/swagger-ui.html",
+                                "/actuator/health"
                         ).permitAll()
+                                // the scraper authenticates with the bearer token of an ADMIN user
+                                .requestMatchers("/admin/**", "/actuator/info", "/actuator/metrics/**", "/actuator/startup", "/actuator/prometheus").hasAuthority("ADMIN")
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -0,0 +1,161 @@
+package com.gichungasoftwares.book_network.tracing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+
+// Writes finished spans as JSON lines to a local file, rolled over to file.1 ... file.N when it reaches maxBytes.
+// A trace is rebuilt offline by grouping the lines on traceId and linking parentSpanId to spanId.
+@Slf4j
+public class RotatingFileSpanExporter implements SpanExporter {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final ObjectMapper objectMapper;
+    private OutputStream out;
+    private long written;
+
+    public RotatingFileSpanExporter(Path file, long maxBytes, int maxFiles, ObjectMapper objectMapper) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.objectMapper = objectMapper;
+    }
+
+    // called by the batch span processor thread
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                byte[] line = toJsonLine(span);
+                if (out == null) {
+                    open();
+                } else if (written > 0 && written + line.length > maxBytes) {
+                    rotate();
+                }
+                out.write(line);
+                written += line.length;
+            }
+            if (out != null) {
+                out.flush();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Could not export {} spans to {}", spans.size(), file, e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        try {
+            if (out != null) {
+                out.flush();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            closeCurrentFile();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private byte[] toJsonLine(SpanData span) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(line, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("traceId", span.getTraceId());
+            generator.writeStringField("spanId", span.getSpanId());
+            if (span.getParentSpanContext().isValid()) {
+                generator.writeStringField("parentSpanId", span.getParentSpanId());
+            }
+            generator.writeStringField("name", span.getName());
+            generator.writeStringField("kind", span.getKind().name());
+            generator.writeNumberField("startEpochNanos", span.getStartEpochNanos());
+            generator.writeNumberField("durationNanos", span.getEndEpochNanos() - span.getStartEpochNanos());
+            generator.writeStringField("status", span.getStatus().getStatusCode().name());
+            generator.writeObjectFieldStart("attributes");
+            for (Map.Entry<AttributeKey<?>, Object> attribute : span.getAttributes().asMap().entrySet()) {
+                generator.writeStringField(attribute.getKey().getKey(), String.valueOf(attribute.getValue()));
+            }
+            generator.writeEndObject();
+            if (!span.getEvents().isEmpty()) {
+                generator.writeArrayFieldStart("events");
+                for (EventData event : span.getEvents()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("name", event.getName());
+                    generator.writeNumberField("epochNanos", event.getEpochNanos());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        line.write('\n');
+        return line.toByteArray();
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        written = Files.size(file);
+    }
+
+    // file.N is dropped, file.(i) becomes file.(i + 1) and the current file becomes file.1
+    private void rotate() throws IOException {
+        closeCurrentFile();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeCurrentFile() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+}
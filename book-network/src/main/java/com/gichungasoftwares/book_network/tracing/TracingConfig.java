@@ -0,0 +1,36 @@
+package com.gichungasoftwares.book_network.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class TracingConfig {
+
+    // picked up by the @Async executor, the current observation (and so the span) follows the task
+    // to the executor thread and the async work is a child of the request that submitted it
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    // Spring Boot adds every SpanExporter bean to the OpenTelemetry batch span processor
+    @Bean
+    @ConditionalOnProperty(prefix = "application.tracing.file", name = "enabled", havingValue = "true")
+    public SpanExporter rotatingFileSpanExporter(
+            @Value("${application.tracing.file.path:./traces/spans.jsonl}") String path,
+            @Value("${application.tracing.file.max-size:10MB}") DataSize maxSize,
+            @Value("${application.tracing.file.max-files:5}") int maxFiles,
+            ObjectMapper objectMapper
+    ) {
+        return new RotatingFileSpanExporter(Paths.get(path), maxSize.toBytes(), maxFiles, objectMapper);
+    }
+}
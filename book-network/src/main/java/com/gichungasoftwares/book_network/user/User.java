@@ -2,9 +2,14 @@ package com.gichungasoftwares.book_network.user;
 
 import com.gichungasoftwares.book_network.book.Book;
 import com.gichungasoftwares.book_network.history.BookTransactionHistory;
+import com.gichungasoftwares.book_network.listing.BookListingOwnerListener;
 import com.gichungasoftwares.book_network.role.Role;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -25,8 +30,11 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@NaturalIdCache(region = "user-natural-id")
 @Table(name = "_user")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, BookListingOwnerListener.class})
 public class User implements UserDetails, Principal {
 
     @Id
@@ -35,13 +43,15 @@ public class User implements UserDetails, Principal {
     private String firstname;
     private String lastname;
     private LocalDate dateOfBirth;
+    @NaturalId(mutable = true)
     @Column(unique = true)
     private String email;
     private String password;
     private boolean isAccountLocked;
     private boolean isEnabled;
 
-    @ManyToMany(fetch = FetchType.EAGER) // fetch user roles when we fetch the user
+    @ManyToMany // roles are loaded with the user by UserRepository.findByEmail, from the cache when possible
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     private List<Role> roles;
 
     @OneToMany(mappedBy = "owner")
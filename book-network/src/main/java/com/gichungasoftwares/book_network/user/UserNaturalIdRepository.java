@@ -0,0 +1,7 @@
+package com.gichungasoftwares.book_network.user;
+
+import java.util.Optional;
+
+public interface UserNaturalIdRepository {
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,28 @@
+package com.gichungasoftwares.book_network.user;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// The user is loaded on every authenticated request: email -> id comes from the natural id cache,
+// the user and its roles from the entity and collection caches, the database is only hit on a miss
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail(String email) {
+        Optional<User> user = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+        // the authorities are read after the transaction is over
+        user.ifPresent(u -> Hibernate.initialize(u.getRoles()));
+        return user;
+    }
+}
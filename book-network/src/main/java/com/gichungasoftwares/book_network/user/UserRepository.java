@@ -2,10 +2,8 @@ package com.gichungasoftwares.book_network.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
-
-public interface UserRepository extends JpaRepository<User, Integer> {
-    Optional<User> findByEmail(String email);
+// findByEmail is a natural id lookup, see UserNaturalIdRepositoryImpl
+public interface UserRepository extends JpaRepository<User, Integer>, UserNaturalIdRepository {
 
     boolean existsByEmail(String email);
 }
@@ -0,0 +1,109 @@
+package com.gichungasoftwares.book_network;
+
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import com.gichungasoftwares.book_network.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reads after a write through the services and repositories must see the write, whether the
+// cached entry was updated (entity writes) or the region was evicted (the rating bulk update)
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void clearCache() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+
+    @Test
+    void bookUpdateIsReadBackFromTheCache() {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Cached book", "a book read from the cache");
+        assertThat(bookService.findById(bookId, FieldSet.ALL).isShareable()).isTrue();
+
+        testData.runAs(owner, auth -> bookService.updateShareableStatus(bookId, auth));
+        long hits = region("book").getHitCount();
+
+        assertThat(bookService.findById(bookId, FieldSet.ALL).isShareable()).isFalse();
+        assertThat(region("book").getHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    void ratingBulkUpdateEvictsTheCachedBook() {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Rated book", "a book rated while cached");
+        assertThat(bookService.findById(bookId, FieldSet.ALL).getRate()).isZero();
+
+        testData.feedback(testData.user("Reviewer"), bookId, 4);
+
+        BookResponse rated = bookService.findById(bookId, FieldSet.ALL);
+        assertThat(rated.getRate()).isEqualTo(4.0);
+    }
+
+    @Test
+    void userLookupByEmailIsCachedAndSeesUpdates() {
+        User user = testData.user("Cached");
+        userDetailsService.loadUserByUsername(user.getEmail());
+        long naturalIdHits = region("user-natural-id").getHitCount();
+
+        User loaded = (User) userDetailsService.loadUserByUsername(user.getEmail());
+        assertThat(region("user-natural-id").getHitCount()).isGreaterThan(naturalIdHits);
+        assertThat(loaded.getAuthorities()).extracting("authority").containsExactly("USER");
+
+        loaded.setFirstname("Renamed");
+        userRepository.save(loaded);
+
+        User reloaded = (User) userDetailsService.loadUserByUsername(user.getEmail());
+        assertThat(reloaded.getFirstname()).isEqualTo("Renamed");
+        assertThat(reloaded.getAuthorities()).extracting("authority").containsExactly("USER");
+    }
+
+    @Test
+    void emailChangeMovesTheNaturalId() {
+        User user = testData.user("Moving");
+        String oldEmail = user.getEmail();
+        userDetailsService.loadUserByUsername(oldEmail);
+
+        User loaded = userRepository.findById(user.getUser_id()).orElseThrow();
+        loaded.setEmail("moved-" + oldEmail);
+        userRepository.save(loaded);
+
+        assertThat(userRepository.findByEmail(oldEmail)).isEmpty();
+        assertThat(userRepository.findByEmail("moved-" + oldEmail)).map(User::getUser_id).contains(user.getUser_id());
+    }
+
+    private CacheRegionStatistics region(String name) {
+        return sessionFactory.getStatistics().getDomainDataRegionStatistics(name);
+    }
+}
@@ -0,0 +1,83 @@
+package com.gichungasoftwares.book_network.activity;
+
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.support.SqlStatementCounter;
+import com.gichungasoftwares.book_network.support.StatementCountConfig;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The test users are created without registration, so their rows are counted on the first transition
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({StatementCountConfig.class, TestData.class})
+class UserActivityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlStatementCounter statements;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserActivityRepository activityRepository;
+
+    @Test
+    void countersFollowTheTransitions() {
+        User owner = testData.user("Owner");
+        User borrower = testData.user("Borrower");
+        Integer bookId = testData.book(owner, "Counted book", "a book whose borrows are counted");
+        Integer archivedBookId = testData.book(owner, "Archived book", "a book put away");
+        testData.runAs(owner, auth -> bookService.updateArchivedStatus(archivedBookId, auth));
+
+        testData.borrow(borrower, bookId);
+        assertThat(activityRepository.findById(borrower.getUser_id())).get()
+                .returns(1L, UserActivity::getBorrowedBooks)
+                .returns(1L, UserActivity::getOpenLoans);
+
+        testData.giveBack(borrower, bookId);
+        assertThat(activityRepository.findById(owner.getUser_id())).get()
+                .returns(2L, UserActivity::getBooksOwned)
+                .returns(1L, UserActivity::getArchivedBooks)
+                .returns(1L, UserActivity::getReturnedBooks)
+                .returns(1L, UserActivity::getPendingApprovals);
+
+        testData.runAs(owner, auth -> bookService.ApproveReturnedBorrowedBook(bookId, auth));
+        assertThat(activityRepository.findById(owner.getUser_id())).get()
+                .returns(0L, UserActivity::getPendingApprovals);
+        assertThat(activityRepository.findById(borrower.getUser_id())).get()
+                .returns(1L, UserActivity::getBorrowedBooks)
+                .returns(0L, UserActivity::getOpenLoans);
+    }
+
+    @Test
+    void pageTotalIsReadFromTheCounters() throws Exception {
+        User owner = testData.user("Owner");
+        for (int i = 0; i < 3; i++) {
+            testData.book(owner, "Book " + i, "one of three");
+        }
+        // a full first page, so the total is not known from the page itself: the page, its owner and
+        // the counters row, no COUNT
+        statements.assertAtMost(3, () -> mockMvc.perform(get("/books/owner").param("size", "2")
+                        .with(authentication(testData.authentication(owner))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalPages").value(2)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.gichungasoftwares.book_network.auth;
+
+import com.gichungasoftwares.book_network.support.SqlStatementCounter;
+import com.gichungasoftwares.book_network.support.StatementCountConfig;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.Token;
+import com.gichungasoftwares.book_network.user.TokenRepository;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({StatementCountConfig.class, TestData.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AuthenticationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlStatementCounter statements;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @MockBean
+    private EmailService emailService;
+
+    private User user;
+
+    @BeforeAll
+    void seed() {
+        user = testData.user("Member");
+    }
+
+    @Test
+    void register() throws Exception {
+        statements.assertAtMost(7, () -> mockMvc.perform(post("/auth/register")
+                        .contentType("application/json")
+                        .content("""
+                                {"firstname": "New", "lastname": "Member", "email": "new-member@mail.com", "password": "password"}
+                                """))
+                .andExpect(status().isAccepted()));
+    }
+
+    @Test
+    void authenticate() throws Exception {
+        statements.assertAtMost(1, () -> mockMvc.perform(post("/auth/authenticate")
+                        .contentType("application/json")
+                        .content("""
+                                {"email": "%s", "password": "%s"}
+                                """.formatted(user.getEmail(), TestData.PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty()));
+    }
+
+    @Test
+    void activateAccount() throws Exception {
+        User inactive = testData.user("Inactive");
+        tokenRepository.save(Token.builder()
+                .token("123456")
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(15))
+                .user(inactive)
+                .build());
+        statements.assertAtMost(4, () -> mockMvc.perform(get("/auth/activate-account").param("token", "123456"))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,342 @@
+package com.gichungasoftwares.book_network.book;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.config.BinaryEncodingConfig;
+import com.gichungasoftwares.book_network.support.SqlStatementCounter;
+import com.gichungasoftwares.book_network.support.StatementCountConfig;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every BookController endpoint with an upper bound on the statements it may execute,
+// seeded with several owners so a per-row query pushes the count over the bound
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({StatementCountConfig.class, TestData.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookControllerTest {
+
+    private static final int OWNERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlStatementCounter statements;
+    @Autowired
+    private TestData testData;
+
+    private User reader;
+    private Authentication readerAuth;
+    private final List<User> owners = new ArrayList<>();
+    private final List<Integer> books = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        reader = testData.user("Reader");
+        readerAuth = testData.authentication(reader);
+        testData.book(reader, "Reader own book", "a book the reader owns");
+        for (int i = 0; i < OWNERS; i++) {
+            User owner = testData.user("Owner" + i);
+            owners.add(owner);
+            for (int j = 0; j < 2; j++) {
+                Integer bookId = testData.book(owner, "Book " + i + "-" + j, "a story about dragons and castles number " + j);
+                books.add(bookId);
+                testData.feedback(reader, bookId, 1 + (i + j) % 5);
+            }
+        }
+        // the reader borrowed one book of every owner and returned them
+        for (int i = 0; i < OWNERS; i++) {
+            testData.borrow(reader, books.get(i * 2));
+            testData.giveBack(reader, books.get(i * 2));
+        }
+        testData.projectListings();
+    }
+
+    @Test
+    void saveBook() throws Exception {
+        // + the owner's activity counters
+        statements.assertAtMost(3, () -> mockMvc.perform(post("/books")
+                        .with(authentication(readerAuth))
+                        .contentType("application/json")
+                        .content("""
+                                {"title": "New book", "authorName": "Someone", "isbn": "123", "synopsis": "new", "isShareable": true}
+                                """))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void findBookById() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/{id}", books.get(0)).with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner").value(owners.get(0).fullName())));
+    }
+
+    @Test
+    void findAllBooks() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books").param("size", "20").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", greaterThanOrEqualTo(OWNERS * 2)))
+                .andExpect(jsonPath("$.content[0].owner").exists())
+                .andExpect(jsonPath("$.content[0].isbn").exists())
+                .andExpect(jsonPath("$.content[0].synopsis").exists())
+                .andExpect(jsonPath("$.content[0].shareable").value(true))
+                .andExpect(jsonPath("$.content[0].available").exists()));
+    }
+
+    @Test
+    void findAllBooksWithRatingHistogram() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books").param("size", "20").param("fields", "ratingHistogram")
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].ratingHistogram.total").exists())
+                .andExpect(jsonPath("$.content[0].title").doesNotExist()));
+    }
+
+    @Test
+    void streamAllBooks() throws Exception {
+        statements.assertAtMost(2, () -> performStreamed(get("/books").param("stream", "true").param("size", "20").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", greaterThanOrEqualTo(OWNERS * 2)))
+                .andExpect(jsonPath("$.totalElements", greaterThanOrEqualTo(OWNERS * 2))));
+    }
+
+    @Test
+    void findAllBooksWithFields() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books").param("size", "20").param("fields", "title,authorName")
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").exists())
+                .andExpect(jsonPath("$.content[0].title").exists())
+                .andExpect(jsonPath("$.content[0].owner").doesNotExist())
+                .andExpect(jsonPath("$.content[0].cover").doesNotExist())
+                .andExpect(jsonPath("$.content[0].rate").doesNotExist())
+                .andExpect(jsonPath("$.totalElements", greaterThanOrEqualTo(OWNERS * 2))));
+    }
+
+    @Test
+    void streamAllBooksWithFields() throws Exception {
+        statements.assertAtMost(2, () -> performStreamed(get("/books").param("stream", "true").param("size", "20").param("fields", "title")
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").exists())
+                .andExpect(jsonPath("$.content[0].owner").doesNotExist())
+                .andExpect(jsonPath("$.content[0].cover").doesNotExist()));
+    }
+
+    @Test
+    void findAllBooksAsCbor() throws Exception {
+        byte[] body = mockMvc.perform(get("/books").param("size", "20")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertBinaryPage(new ObjectMapper(BinaryEncodingConfig.cborFactory()).readTree(body));
+    }
+
+    @Test
+    void streamAllBooksAsSmile() throws Exception {
+        byte[] body = performStreamed(get("/books").param("stream", "true").param("size", "20")
+                        .accept(BinaryEncodingConfig.APPLICATION_SMILE)
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryEncodingConfig.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertBinaryPage(new ObjectMapper(BinaryEncodingConfig.smileFactory()).readTree(body));
+    }
+
+    @Test
+    void findAllBooksByOwner() throws Exception {
+        Authentication ownerAuth = testData.authentication(owners.get(1));
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/owner").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2)));
+    }
+
+    @Test
+    void streamAllBooksByOwner() throws Exception {
+        Authentication ownerAuth = testData.authentication(owners.get(1));
+        statements.assertAtMost(2, () -> performStreamed(get("/books/owner").param("stream", "true").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2)));
+    }
+
+    // the streamed body is written row by row on the async request, it must read like the buffered page
+    @Test
+    void streamedPageMatchesTheBufferedOne() throws Exception {
+        Authentication ownerAuth = testData.authentication(owners.get(1));
+        String buffered = mockMvc.perform(get("/books/owner").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String streamed = performStreamed(get("/books/owner").param("stream", "true").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content[*].title", containsInAnyOrder("Book 1-0", "Book 1-1")))
+                .andReturn().getResponse().getContentAsString();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(objectMapper.readTree(streamed)).isEqualTo(objectMapper.readTree(buffered));
+    }
+
+    @Test
+    void findAllBorrowedBooks() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/borrowed").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(OWNERS)));
+    }
+
+    @Test
+    void streamAllBorrowedBooks() throws Exception {
+        statements.assertAtMost(2, () -> performStreamed(get("/books/borrowed").param("stream", "true").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(OWNERS)));
+    }
+
+    @Test
+    void findAllReturnedBooks() throws Exception {
+        Authentication ownerAuth = testData.authentication(owners.get(2));
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/returned").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1)));
+    }
+
+    @Test
+    void streamAllReturnedBooks() throws Exception {
+        Authentication ownerAuth = testData.authentication(owners.get(2));
+        statements.assertAtMost(2, () -> performStreamed(get("/books/returned").param("stream", "true").with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1)));
+    }
+
+    @Test
+    void findTopRatedBooks() throws Exception {
+        statements.assertAtMost(0, () -> mockMvc.perform(get("/books/top").with(authentication(readerAuth)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void findBooksByIds() throws Exception {
+        // one book of every owner, so a per-row owner lookup would show up
+        String ids = books.get(8) + ",999999," + books.get(0) + "," + books.get(2) + "," + books.get(4) + "," + books.get(6);
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books").param("ids", ids).with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].id").value(books.get(8)))
+                .andExpect(jsonPath("$[0].book.owner").value(owners.get(4).fullName()))
+                .andExpect(jsonPath("$[1].id").value(999999))
+                .andExpect(jsonPath("$[1].found").value(false))
+                .andExpect(jsonPath("$[2].book.id").value(books.get(0))));
+    }
+
+    @Test
+    void findBooksByIdsInBody() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(post("/books/batch")
+                        .with(authentication(readerAuth))
+                        .contentType("application/json")
+                        .content("{\"ids\": [" + books.get(1) + ", " + books.get(3) + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.id").value(books.get(1)))
+                .andExpect(jsonPath("$[1].book.id").value(books.get(3)))
+                .andExpect(jsonPath("$[1].found").value(true)));
+    }
+
+    @Test
+    void findRelatedBooks() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/{id}/related", books.get(0)).with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(OWNERS - 1)));
+        // the size is bounded, a negative one still returns a book
+        mockMvc.perform(get("/books/{id}/related", books.get(0)).param("size", "-1").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void findSimilarBooks() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/books/{id}/similar", books.get(0)).with(authentication(readerAuth)))
+                .andExpect(status().isOk()));
+        mockMvc.perform(get("/books/{id}/similar", books.get(0)).param("size", "-1").with(authentication(readerAuth)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateShareableAndArchivedStatus() throws Exception {
+        User owner = owners.get(3);
+        Integer bookId = testData.book(owner, "Toggled book", "toggled");
+        Authentication ownerAuth = testData.authentication(owner);
+        statements.assertAtMost(2, () -> mockMvc.perform(patch("/books/shareable/{id}", bookId).with(authentication(ownerAuth)))
+                .andExpect(status().isOk()));
+        statements.assertAtMost(3, () -> mockMvc.perform(patch("/books/archived/{id}", bookId).with(authentication(ownerAuth)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void borrowReturnAndApprove() throws Exception {
+        User owner = owners.get(4);
+        Integer bookId = testData.book(owner, "Borrowed book", "borrowed");
+        Authentication ownerAuth = testData.authentication(owner);
+        // each transition also updates the counters of the users it concerns, one statement per user
+        statements.assertAtMost(6, () -> mockMvc.perform(post("/books/borrow/{id}", bookId).with(authentication(readerAuth)))
+                .andExpect(status().isOk()));
+        statements.assertAtMost(4, () -> mockMvc.perform(post("/books/borrow/return/{id}", bookId).with(authentication(readerAuth)))
+                .andExpect(status().isOk()));
+        statements.assertAtMost(5, () -> mockMvc.perform(post("/books/borrow/return/approve/{id}", bookId).with(authentication(ownerAuth)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void uploadBookCoverPicture() throws Exception {
+        MockMultipartFile cover = new MockMultipartFile("file", "cover.png", "image/png", new byte[]{1, 2, 3});
+        statements.assertAtMost(2, () -> mockMvc.perform(multipart("/books/cover/{id}", books.get(1))
+                        .file(cover)
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isAccepted()));
+    }
+
+    // same page as the JSON one, with the covers as raw bytes instead of base64 strings
+    private void assertBinaryPage(JsonNode page) {
+        assertThat(page.get("content").size()).isGreaterThanOrEqualTo(OWNERS * 2);
+        for (JsonNode book : page.get("content")) {
+            JsonNode cover = book.get("cover");
+            assertThat(cover.isNull() || cover.isBinary()).isTrue();
+        }
+    }
+
+    // streamed bodies are written on another thread, wait for them before asserting
+    private ResultActions performStreamed(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
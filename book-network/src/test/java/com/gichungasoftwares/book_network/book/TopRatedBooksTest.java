@@ -0,0 +1,92 @@
+package com.gichungasoftwares.book_network.book;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The leaderboard follows the committed ratings and statuses only
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class TopRatedBooksTest {
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private TopRatedBooks topRatedBooks;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void ratingsAreRankedOnceCommitted() {
+        User owner = testData.user("Owner");
+        User reader = testData.user("Reader");
+        Integer bookId = testData.book(owner, "Rated in a transaction", "a book rated before the commit");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            testData.feedback(reader, bookId, 5);
+            assertThat(rankedBookIds()).doesNotContain(bookId);
+        });
+        assertThat(rankedBookIds()).contains(bookId);
+
+        Integer rolledBackId = testData.book(owner, "Rated then rolled back", "a book whose rating is rolled back");
+        transactionTemplate.executeWithoutResult(status -> {
+            testData.feedback(reader, rolledBackId, 5);
+            status.setRollbackOnly();
+        });
+        assertThat(rankedBookIds()).doesNotContain(rolledBackId);
+    }
+
+    @Test
+    void statusChangesApplyOnceCommitted() {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Archived in a transaction", "a book archived before the commit");
+        testData.feedback(testData.user("Reader"), bookId, 5);
+        assertThat(rankedBookIds()).contains(bookId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            testData.runAs(owner, auth -> bookService.updateArchivedStatus(bookId, auth));
+            status.setRollbackOnly();
+        });
+        assertThat(rankedBookIds()).contains(bookId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            testData.runAs(owner, auth -> bookService.updateArchivedStatus(bookId, auth));
+            assertThat(rankedBookIds()).contains(bookId);
+        });
+        assertThat(rankedBookIds()).doesNotContain(bookId);
+    }
+
+    @Test
+    void moreRatingsRankHigherAndArchivedBooksLeave() {
+        User owner = testData.user("Owner");
+        Integer wellRatedId = testData.book(owner, "Rated by three readers", "a book with three 5 star notes");
+        Integer onceRatedId = testData.book(owner, "Rated by one reader", "a book with one 5 star note");
+        for (int i = 0; i < 3; i++) {
+            testData.feedback(testData.user("Reader"), wellRatedId, 5);
+        }
+        testData.feedback(testData.user("Reader"), onceRatedId, 5);
+
+        // the prior pulls the single note further towards the mean
+        assertThat(rankedBookIds()).containsSubsequence(wellRatedId, onceRatedId);
+
+        testData.runAs(owner, auth -> bookService.updateArchivedStatus(wellRatedId, auth));
+
+        assertThat(rankedBookIds()).doesNotContain(wellRatedId).contains(onceRatedId);
+    }
+
+    private List<Integer> rankedBookIds() {
+        return topRatedBooks.top(1_000).stream().map(TopRatedBookResponse::getId).toList();
+    }
+}
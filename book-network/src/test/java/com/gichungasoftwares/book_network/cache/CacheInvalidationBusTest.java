@@ -0,0 +1,66 @@
+package com.gichungasoftwares.book_network.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.common.FieldSet;
+import com.gichungasoftwares.book_network.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 has no LISTEN/NOTIFY: the messages are handed to the bus as the listener would, and the
+// other node's write is a plain SQL update the second level cache of this node knows nothing about
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class CacheInvalidationBusTest {
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private CacheInvalidationBus bus;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void otherNodesChangeEvictsTheCachedBook() throws Exception {
+        Integer bookId = cachedBook();
+
+        retitle(bookId, "Changed elsewhere");
+        assertThat(bookService.findById(bookId, FieldSet.ALL).getTitle()).isEqualTo("Cached title");
+
+        bus.receive(objectMapper.writeValueAsString(new CacheInvalidation("other-node", Set.of(bookId), Set.of(), false)));
+        assertThat(bookService.findById(bookId, FieldSet.ALL).getTitle()).isEqualTo("Changed elsewhere");
+    }
+
+    @Test
+    void ownMessagesAreIgnored() throws Exception {
+        Integer bookId = cachedBook();
+
+        retitle(bookId, "Changed elsewhere");
+        bus.receive(objectMapper.writeValueAsString(new CacheInvalidation(bus.nodeId(), Set.of(bookId), Set.of(), false)));
+
+        assertThat(bookService.findById(bookId, FieldSet.ALL).getTitle()).isEqualTo("Cached title");
+    }
+
+    private Integer cachedBook() {
+        Integer bookId = testData.book(testData.user("Owner"), "Cached title", "a book cached on every node");
+        bookService.findById(bookId, FieldSet.ALL);
+        return bookId;
+    }
+
+    private void retitle(Integer bookId, String title) {
+        jdbcTemplate.update("UPDATE book SET title = ? WHERE id = ?", title, bookId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gichungasoftwares.book_network.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gichungasoftwares.book_network.book.BookResponse;
+import com.gichungasoftwares.book_network.book.RatingHistogramResponse;
+import com.gichungasoftwares.book_network.config.BinaryEncodingConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The payload side of PageResponseSerializationBenchmark: the binary encodings carry the covers as raw bytes,
+// JSON as base64 text, a third larger
+class PageResponseEncodingSizeTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int COVER_SIZE = 16_384;
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().filters(FieldSet.serializeAll()).build();
+    private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(BinaryEncodingConfig.cborFactory()).filters(FieldSet.serializeAll()).build();
+    private final ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(BinaryEncodingConfig.smileFactory()).filters(FieldSet.serializeAll()).build();
+
+    @Test
+    void binaryEncodingsCarryTheCoversAsRawBytes() throws Exception {
+        PageResponse<BookResponse> page = page(COVER_SIZE);
+        int jsonSize = json.writeValueAsBytes(page).length;
+
+        assertThat(jsonSize).isGreaterThan(PAGE_SIZE * COVER_SIZE * 4 / 3);
+        for (ObjectMapper binary : List.of(cbor, smile)) {
+            byte[] encoded = binary.writeValueAsBytes(page);
+            assertThat(encoded.length).isLessThan(PAGE_SIZE * COVER_SIZE + PAGE_SIZE * 1_024);
+            assertThat(encoded.length).isLessThan(jsonSize * 4 / 5);
+            PageResponse<BookResponse> decoded = binary.readValue(encoded, binary.getTypeFactory()
+                    .constructParametricType(PageResponse.class, BookResponse.class));
+            assertThat(decoded.getContent().get(0).getCover()).isEqualTo(page.getContent().get(0).getCover());
+        }
+    }
+
+    @Test
+    void withoutCoversTheBinaryEncodingsAreNoLarger() throws Exception {
+        PageResponse<BookResponse> page = page(0);
+        int jsonSize = json.writeValueAsBytes(page).length;
+
+        assertThat(cbor.writeValueAsBytes(page).length).isLessThanOrEqualTo(jsonSize);
+        assertThat(smile.writeValueAsBytes(page).length).isLessThanOrEqualTo(jsonSize);
+    }
+
+    private PageResponse<BookResponse> page(int coverSize) {
+        List<BookResponse> content = IntStream.range(0, PAGE_SIZE)
+                .mapToObj(id -> book(id, coverSize))
+                .toList();
+        return new PageResponse<>(content, 0, PAGE_SIZE, 1000L, 1000 / PAGE_SIZE, true, false);
+    }
+
+    // the same books as the benchmark
+    private BookResponse book(int id, int coverSize) {
+        byte[] cover = null;
+        if (coverSize > 0) {
+            cover = new byte[coverSize];
+            ThreadLocalRandom.current().nextBytes(cover);
+        }
+        return BookResponse.builder()
+                .id(id)
+                .title("Book " + id)
+                .authorName("Author " + id)
+                .isbn("978-0-00-" + id)
+                .synopsis("Synopsis of book " + id)
+                .owner("Bench Mark")
+                .rate(4.0)
+                .ratingHistogram(new RatingHistogramResponse())
+                .shareable(true)
+                .cover(cover)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gichungasoftwares.book_network.dashboard;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DashboardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User borrower;
+
+    @BeforeAll
+    void seed() {
+        owner = testData.user("Owner");
+        borrower = testData.user("Borrower");
+        Integer returnedBookId = testData.book(owner, "Returned book", "returned, waiting for approval");
+        Integer borrowedBookId = testData.book(owner, "Borrowed book", "still borrowed");
+        testData.book(owner, "Shelved book", "never borrowed");
+        testData.borrow(borrower, returnedBookId);
+        testData.giveBack(borrower, returnedBookId);
+        testData.borrow(borrower, borrowedBookId);
+    }
+
+    @Test
+    void ownerDashboard() throws Exception {
+        mockMvc.perform(get("/me/dashboard").with(authentication(testData.authentication(owner))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownedBooks.content.length()").value(3))
+                .andExpect(jsonPath("$.booksOwned").value(3))
+                .andExpect(jsonPath("$.archivedBooks").value(0))
+                .andExpect(jsonPath("$.returnedBooks.content.length()").value(1))
+                .andExpect(jsonPath("$.pendingApprovals").value(1))
+                .andExpect(jsonPath("$.openLoans").value(0))
+                .andExpect(jsonPath("$.unavailable").isEmpty());
+    }
+
+    @Test
+    void borrowerDashboard() throws Exception {
+        mockMvc.perform(get("/me/dashboard").with(authentication(testData.authentication(borrower))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.borrowedBooks.content.length()").value(2))
+                .andExpect(jsonPath("$.openLoans").value(2))
+                .andExpect(jsonPath("$.booksOwned").value(0))
+                .andExpect(jsonPath("$.pendingApprovals").value(0));
+    }
+}
@@ -0,0 +1,76 @@
+package com.gichungasoftwares.book_network.datasource;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The replica is a second pool on the same in-memory H2 database, so it sees the schema and the data
+@SpringBootTest(properties = {
+        "application.datasource.replica.urls=jdbc:h2:mem:book_social_network;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "application.datasource.replica.read-your-writes-window=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Integer bookId;
+    private Authentication readerAuth;
+    private Authentication borrowerAuth;
+
+    @BeforeAll
+    void seed() {
+        User owner = testData.user("Owner");
+        bookId = testData.book(owner, "Replicated book", "a book read from the replica");
+        readerAuth = testData.authentication(testData.user("Reader"));
+        borrowerAuth = testData.authentication(testData.user("Borrower"));
+    }
+
+    @Test
+    void readOnlyPagesGoToTheReplica() throws Exception {
+        double before = routed("replica-1", "read-only");
+        mockMvc.perform(get("/books").with(authentication(readerAuth)))
+                .andExpect(status().isOk());
+        assertThat(routed("replica-1", "read-only")).isGreaterThan(before);
+    }
+
+    @Test
+    void readsFollowTheUsersOwnWriteToThePrimary() throws Exception {
+        mockMvc.perform(post("/books/borrow/{id}", bookId).with(authentication(borrowerAuth)))
+                .andExpect(status().isOk());
+        double before = routed(ReplicaRoutingDataSource.PRIMARY, "read-your-writes");
+        mockMvc.perform(get("/books/borrowed").with(authentication(borrowerAuth)))
+                .andExpect(status().isOk());
+        assertThat(routed(ReplicaRoutingDataSource.PRIMARY, "read-your-writes")).isGreaterThan(before);
+    }
+
+    private double routed(String target, String reason) {
+        Counter counter = meterRegistry.find("datasource.routing").tags("target", target, "reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
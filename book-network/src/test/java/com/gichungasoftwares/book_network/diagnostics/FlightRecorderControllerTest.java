@@ -0,0 +1,95 @@
+package com.gichungasoftwares.book_network.diagnostics;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlightRecorderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    private Authentication userAuth;
+    private Authentication adminAuth;
+
+    @BeforeAll
+    void seed() {
+        userAuth = testData.authentication(testData.user("Reader"));
+        User admin = testData.user("Admin");
+        adminAuth = new UsernamePasswordAuthenticationToken(admin, null, List.of(new SimpleGrantedAuthority("ADMIN")));
+    }
+
+    @AfterEach
+    void closeRecording() {
+        flightRecorderService.closeRecording();
+    }
+
+    @Test
+    void onlyAdminsCanRecord() throws Exception {
+        mockMvc.perform(post("/admin/jfr/start").with(authentication(userAuth)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void startDumpAndStop() throws Exception {
+        mockMvc.perform(post("/admin/jfr/start")
+                        .param("maxAge", "PT5M")
+                        .param("maxSize", "10MB")
+                        .with(authentication(adminAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.maxAgeSeconds").value(300));
+
+        MvcResult dump = mockMvc.perform(get("/admin/jfr/dump").with(authentication(adminAuth)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] recording = mockMvc.perform(asyncDispatch(dump))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        // JFR files start with the "FLR" magic
+        assertThat(new String(recording, 0, 3)).isEqualTo("FLR");
+
+        mockMvc.perform(post("/admin/jfr/stop").with(authentication(adminAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("STOPPED"));
+    }
+
+    @Test
+    void stopWithoutRecording() throws Exception {
+        mockMvc.perform(post("/admin/jfr/stop").with(authentication(adminAuth)))
+                .andExpect(status().isBadRequest());
+    }
+}
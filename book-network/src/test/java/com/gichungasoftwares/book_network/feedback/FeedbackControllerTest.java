@@ -0,0 +1,150 @@
+package com.gichungasoftwares.book_network.feedback;
+
+import com.gichungasoftwares.book_network.book.Book;
+import com.gichungasoftwares.book_network.book.BookRepository;
+import com.gichungasoftwares.book_network.book.RatedBook;
+import com.gichungasoftwares.book_network.book.RatingHistogram;
+import com.gichungasoftwares.book_network.support.SqlStatementCounter;
+import com.gichungasoftwares.book_network.support.StatementCountConfig;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({StatementCountConfig.class, TestData.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FeedbackControllerTest {
+
+    private static final int REVIEWERS = 6;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlStatementCounter statements;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private FeedbackService feedbackService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer bookId;
+    private Authentication ownerAuth;
+    private Authentication reviewerAuth;
+
+    @BeforeAll
+    void seed() {
+        User owner = testData.user("Owner");
+        ownerAuth = testData.authentication(owner);
+        bookId = testData.book(owner, "Reviewed book", "a book with many reviews");
+        // every feedback has a different author so a per-row user lookup would show up
+        for (int i = 0; i < REVIEWERS; i++) {
+            testData.feedback(testData.user("Reviewer" + i), bookId, 1 + i % 5);
+        }
+        reviewerAuth = testData.authentication(testData.user("Reviewer"));
+    }
+
+    @Test
+    void saveFeedback() throws Exception {
+        statements.assertAtMost(4, () -> mockMvc.perform(post("/feedbacks")
+                        .with(authentication(reviewerAuth))
+                        .contentType("application/json")
+                        .content("""
+                                {"note": 4.5, "comment": "Loved it", "bookId": %d}
+                                """.formatted(bookId)))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void findAllFeedbackByBook() throws Exception {
+        statements.assertAtMost(2, () -> mockMvc.perform(get("/feedbacks/book/{id}", bookId)
+                        .param("size", "20")
+                        .with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", greaterThanOrEqualTo(REVIEWERS))));
+    }
+
+    @Test
+    void findAllFeedbackByBookWithCursor() throws Exception {
+        statements.assertAtMost(1, () -> mockMvc.perform(get("/feedbacks/book/{id}/cursor", bookId)
+                        .param("size", "3")
+                        .with(authentication(ownerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.last").value(false)));
+    }
+
+    @Test
+    void cursorPageSizeMustBePositive() throws Exception {
+        for (String size : new String[]{"0", "-1"}) {
+            mockMvc.perform(get("/feedbacks/book/{id}/cursor", bookId)
+                            .param("size", size)
+                            .with(authentication(ownerAuth)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    // the book toggled by its owner was loaded before the feedback was rated
+    @Test
+    void ratingCountersAreNotWrittenBackByAStaleBook() {
+        User owner = testData.user("Owner");
+        Integer ratedBookId = testData.book(owner, "Rated while toggled", "a book rated during a status change");
+        transactionTemplate.executeWithoutResult(status -> {
+            Book stale = bookRepository.findById(ratedBookId).orElseThrow();
+            CompletableFuture.runAsync(() -> testData.feedback(testData.user("Reviewer"), ratedBookId, 4)).join();
+            stale.setShareable(!stale.isShareable());
+        });
+
+        RatingHistogram rating = bookRepository.findById(ratedBookId).orElseThrow().getRating();
+        assertThat(rating.getRatingCount()).isEqualTo(1);
+        assertThat(rating.getFourStars()).isEqualTo(1);
+    }
+
+    // a book rated before the counters existed gets the counters the incremental updates would have given it
+    @Test
+    void backfillCountsTheNotedFeedbackOnly() {
+        User owner = testData.user("Owner");
+        Integer backfilledBookId = testData.book(owner, "Rated before the counters", "a book rated with and without a note");
+        testData.feedback(testData.user("Reviewer"), backfilledBookId, 4);
+        testData.runAs(testData.user("Reviewer"), auth ->
+                feedbackService.save(new FeedbackRequest(null, "No note", backfilledBookId), auth));
+        jdbcTemplate.update("""
+                UPDATE book SET rating_count = 0, rating_sum = 0, one_star = 0, two_stars = 0,
+                    three_stars = 0, four_stars = 0, five_stars = 0
+                WHERE id = ?
+                """, backfilledBookId);
+
+        bookRepository.backfillRatingHistograms();
+
+        RatedBook rated = bookRepository.findRatedBookById(backfilledBookId).orElseThrow();
+        assertThat(rated.ratingCount()).isEqualTo(1);
+        assertThat(rated.ratingSum()).isEqualTo(4.0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.gichungasoftwares.book_network.file;
+
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Only the files no book cover points to are deleted, whatever the form of the stored path
+@SpringBootTest(properties = {
+        "application.file.uploads.cleanup.enabled=true",
+        "application.file.uploads.cleanup.max-deletes-per-second=0"
+})
+@ActiveProfiles("test")
+@Import(TestData.class)
+class OrphanFileCleanerTest {
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private OrphanFileCleaner cleaner;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void referencedCoversSurviveTheSweep() throws Exception {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Covered book", "a book with a cover");
+        MockMultipartFile file = new MockMultipartFile("file", "cover.png", "image/png", new byte[]{1, 2, 3});
+        testData.runAs(owner, auth -> {
+            bookService.uploadBookCoverPicture(file, auth, bookId);
+            return bookId;
+        });
+        Path cover = Paths.get(jdbcTemplate.queryForObject("SELECT book_cover FROM book WHERE id = ?", String.class, bookId));
+        // the same file, spelled differently than the sweep walks it
+        Path folder = cover.getParent();
+        String respelled = folder.resolve("..").resolve(folder.getFileName()).resolve(cover.getFileName()).toString();
+        jdbcTemplate.update("UPDATE book SET book_cover = ? WHERE id = ?", respelled, bookId);
+        Path orphan = Files.write(folder.resolve("orphan.png"), new byte[]{4, 5, 6});
+        Path recent = Files.write(folder.resolve("recent.png"), new byte[]{7, 8, 9});
+        FileTime expired = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        Files.setLastModifiedTime(cover, expired);
+        Files.setLastModifiedTime(orphan, expired);
+
+        cleaner.sweep();
+
+        assertThat(cover).exists();
+        assertThat(orphan).doesNotExist();
+        // within the grace period, an upload whose book is not saved yet
+        assertThat(recent).exists();
+    }
+}
@@ -0,0 +1,118 @@
+package com.gichungasoftwares.book_network.listing;
+
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import com.gichungasoftwares.book_network.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The listing row follows the book, its owner, its rating and its loans once the queued changes are projected
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class BookListingProjectorTest {
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookListingProjector projector;
+    @Autowired
+    private BookListingRepository listingRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void changesAreProjectedAfterCommit() {
+        User owner = testData.user("Owner");
+        User reader = testData.user("Reader");
+        Integer bookId = testData.book(owner, "Listed book", "a book on the browse page");
+        assertThat(listingRepository.findById(bookId)).isEmpty();
+        long projected = meterRegistry.get("book.listing.lag").timer().count();
+
+        projector.project();
+
+        BookListing listing = listingRepository.findById(bookId).orElseThrow();
+        assertThat(listing.getTitle()).isEqualTo("Listed book");
+        assertThat(listing.getSynopsis()).isEqualTo("a book on the browse page");
+        assertThat(listing.getIsbn()).startsWith("isbn-");
+        assertThat(listing.getOwnerName()).isEqualTo(owner.fullName());
+        assertThat(listing.isAvailable()).isTrue();
+        assertThat(meterRegistry.get("book.listing.lag").timer().count()).isGreaterThan(projected);
+
+        testData.feedback(reader, bookId, 4);
+        testData.borrow(reader, bookId);
+        projector.project();
+
+        listing = listingRepository.findById(bookId).orElseThrow();
+        assertThat(listing.getRate()).isEqualTo(4.0);
+        assertThat(listing.getRating().getFourStars()).isEqualTo(1);
+        assertThat(listing.isAvailable()).isFalse();
+
+        testData.runAs(owner, auth -> bookService.updateArchivedStatus(bookId, auth));
+        projector.project();
+
+        assertThat(listingRepository.findById(bookId)).isEmpty();
+    }
+
+    @Test
+    void renamedOwnersAreProjected() {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Renamed owner's book", "a book whose owner changes name");
+        projector.project();
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(owner.getUser_id()).orElseThrow().setFirstname("Renamed"));
+        projector.project();
+
+        assertThat(listingRepository.findById(bookId)).map(BookListing::getOwnerName).contains("Renamed Reader");
+    }
+
+    // changes made while the application was down (or by another tool) are found by comparing the tables
+    @Test
+    void catchUpQueuesTheOutOfDateBooks() {
+        User owner = testData.user("Owner");
+        Integer changedId = testData.book(owner, "Changed while down", "a book changed outside the application");
+        Integer missingId = testData.book(owner, "Missing while down", "a book with no listing row");
+        Integer currentId = testData.book(owner, "Current", "a book whose row is up to date");
+        projector.project();
+        jdbcTemplate.update("UPDATE book SET title = 'Changed title' WHERE id = ?", changedId);
+        jdbcTemplate.update("DELETE FROM book_listing WHERE book_id = ?", missingId);
+
+        assertThat(listingRepository.findOutOfDateBookIds()).contains(changedId, missingId).doesNotContain(currentId);
+        projector.catchUp();
+        projector.project();
+
+        assertThat(listingRepository.findById(changedId)).map(BookListing::getTitle).contains("Changed title");
+        assertThat(listingRepository.findById(missingId)).isPresent();
+        assertThat(listingRepository.findOutOfDateBookIds()).doesNotContain(changedId, missingId);
+    }
+
+    @Test
+    void rebuildProjectsEveryDisplayableBook() {
+        User owner = testData.user("Owner");
+        Integer bookId = testData.book(owner, "Rebuilt book", "a book listed by the rebuild");
+        listingRepository.deleteAll();
+
+        BookListingRebuildResponse rebuild = projector.rebuild();
+
+        assertThat(listingRepository.count()).isEqualTo(rebuild.books());
+        assertThat(listingRepository.findById(bookId)).map(BookListing::getOwnerId).contains(owner.getUser_id());
+    }
+}
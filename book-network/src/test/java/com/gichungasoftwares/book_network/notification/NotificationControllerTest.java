@@ -0,0 +1,72 @@
+package com.gichungasoftwares.book_network.notification;
+
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+class NotificationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void borrowTransitionsArePushedToTheOwnerAndTheBorrower() throws Exception {
+        User owner = testData.user("Owner");
+        User borrower = testData.user("Borrower");
+        Integer bookId = testData.book(owner, "Notified book", "a book whose borrows are pushed");
+        MvcResult ownerStream = subscribe(owner);
+        MvcResult borrowerStream = subscribe(borrower);
+
+        testData.borrow(borrower, bookId);
+        testData.giveBack(borrower, bookId);
+        testData.runAs(owner, auth -> bookService.ApproveReturnedBorrowedBook(bookId, auth));
+
+        awaitEvent(ownerStream, BorrowNotification.BORROWED);
+        awaitEvent(ownerStream, BorrowNotification.RETURNED);
+        awaitEvent(borrowerStream, BorrowNotification.RETURN_APPROVED);
+        assertThat(ownerStream.getResponse().getContentAsString())
+                .contains("\"bookId\":" + bookId)
+                .doesNotContain("event:" + BorrowNotification.RETURN_APPROVED);
+        assertThat(borrowerStream.getResponse().getContentAsString())
+                .doesNotContain("event:" + BorrowNotification.BORROWED);
+    }
+
+    private MvcResult subscribe(User user) throws Exception {
+        return mockMvc.perform(get("/notifications")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(authentication(testData.authentication(user))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // events are written on the task executor
+    private void awaitEvent(MvcResult stream, String type) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!stream.getResponse().getContentAsString().contains("event:" + type)) {
+            assertThat(System.currentTimeMillis()).as("waiting for a %s event", type).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.gichungasoftwares.book_network.profiling;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "application.profiling.enabled=true",
+        "application.profiling.sample-rate=1.0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RequestProfilingFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+
+    private Authentication readerAuth;
+
+    @BeforeAll
+    void seed() {
+        User owner = testData.user("Owner");
+        testData.book(owner, "Profiled book", "a book listed by a profiled request");
+        readerAuth = testData.authentication(testData.user("Reader"));
+    }
+
+    @Test
+    void serverTimingOfABookPage() throws Exception {
+        mockMvc.perform(get("/books").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RequestProfilingFilter.SERVER_TIMING, matchesPattern(
+                        "auth;dur=[0-9.]+, db;dur=[0-9.]+;desc=\"[1-9][0-9]* statements\", file;dur=[0-9.]+;desc=\"[0-9]+ bytes\""
+                                + "(, alloc;desc=\"[0-9]+ bytes\")?, total;dur=[0-9.]+")));
+    }
+}
@@ -0,0 +1,113 @@
+package com.gichungasoftwares.book_network.reactive;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import com.gichungasoftwares.book_network.user.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// R2DBC on the same in-memory H2 database the JPA side writes to
+@SpringBootTest(properties = {
+        "application.reactive.enabled=true",
+        "application.reactive.url=r2dbc:h2:mem:///book_social_network?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveCatalogControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+
+    private Integer ratedBookId;
+    private Authentication readerAuth;
+
+    @BeforeAll
+    void seed() {
+        User owner = testData.user("Owner");
+        User reader = testData.user("Reader");
+        readerAuth = testData.authentication(reader);
+        ratedBookId = testData.book(owner, "Reactive book", "a book read without blocking");
+        testData.book(owner, "Second reactive book", "another one");
+        testData.book(owner, "Third reactive book", "and one more");
+        testData.feedback(reader, ratedBookId, 4);
+        testData.feedback(testData.user("Reviewer"), ratedBookId, 5);
+    }
+
+    @Test
+    void findAllBooks() throws Exception {
+        performAsync(get("/reactive/books").param("size", "2").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(greaterThanOrEqualTo(3)))
+                .andExpect(jsonPath("$.first").value(true));
+    }
+
+    @Test
+    void findBookById() throws Exception {
+        performAsync(get("/reactive/books/{id}", ratedBookId).with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Reactive book"))
+                .andExpect(jsonPath("$.owner").value("Owner Reader"))
+                .andExpect(jsonPath("$.rate").value(4.5))
+                .andExpect(jsonPath("$.ratingHistogram.total").value(2));
+    }
+
+    @Test
+    void findBookByIdWithFields() throws Exception {
+        performAsync(get("/reactive/books/{id}", ratedBookId).param("fields", "title").with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Reactive book"))
+                .andExpect(jsonPath("$.owner").doesNotExist());
+    }
+
+    @Test
+    void streamAllBooks() throws Exception {
+        String body = performAsync(get("/reactive/books").param("stream", "true").param("size", "50")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).anyMatch(line -> line.contains("\"title\":\"Reactive book\""));
+    }
+
+    @Test
+    void findAllFeedbackByBook() throws Exception {
+        performAsync(get("/reactive/feedbacks/book/{id}", ratedBookId).with(authentication(readerAuth)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[?(@.ownFeedback == true)].note").value(4.0));
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
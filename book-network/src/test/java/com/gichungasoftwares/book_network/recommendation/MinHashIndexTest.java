@@ -0,0 +1,55 @@
+package com.gichungasoftwares.book_network.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The index alone, no application context: signatures and buckets are plain in memory structures
+class MinHashIndexTest {
+
+    private final MinHashIndex index = new MinHashIndex();
+
+    @Test
+    void similarTextsShareBuckets() {
+        index.index(1, SimilarBooksIndex.shingles("The hobbit", "Tolkien", "a hobbit goes there and back again"));
+        index.index(2, SimilarBooksIndex.shingles("The hobbit", "Tolkien", "a hobbit goes there and back again illustrated"));
+        index.index(3, SimilarBooksIndex.shingles("Dune", "Herbert", "a desert planet and its spice"));
+
+        assertThat(index.similar(1, 10)).containsExactly(2);
+    }
+
+    @Test
+    void blankTextsAreNotIndexed() {
+        index.index(1, SimilarBooksIndex.shingles(null, " ", ""));
+        index.index(2, SimilarBooksIndex.shingles("", null, "a"));
+
+        assertThat(index.size()).isZero();
+        assertThat(index.bucketCount()).isZero();
+        assertThat(index.similar(1, 10)).isEmpty();
+    }
+
+    @Test
+    void aBookWhoseTextBecomesBlankLeavesTheIndex() {
+        index.index(1, SimilarBooksIndex.shingles("The hobbit", "Tolkien", "there and back again"));
+        index.index(2, SimilarBooksIndex.shingles("The hobbit", "Tolkien", "there and back again"));
+
+        index.index(1, Set.of());
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.similar(2, 10)).isEmpty();
+    }
+
+    @Test
+    void emptyBucketsAreRemoved() {
+        index.index(1, SimilarBooksIndex.shingles("The hobbit", "Tolkien", "there and back again"));
+        int buckets = index.bucketCount();
+
+        index.index(1, SimilarBooksIndex.shingles("Dune", "Herbert", "a desert planet and its spice"));
+        assertThat(index.bucketCount()).isEqualTo(buckets);
+
+        index.remove(1);
+        assertThat(index.bucketCount()).isZero();
+    }
+}
@@ -0,0 +1,44 @@
+package com.gichungasoftwares.book_network.security;
+
+import com.gichungasoftwares.book_network.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The metrics name the routes, the pools and the users' activity, they are for the ADMIN role only
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestData.class)
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void prometheusRequiresAnAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(authentication(testData.authentication(testData.user("Reader")))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void metricsAndInfoRequireAnAdmin() throws Exception {
+        var reader = authentication(testData.authentication(testData.user("Reader")));
+        for (String path : new String[]{"/actuator/metrics", "/actuator/metrics/jvm.memory.used", "/actuator/info"}) {
+            mockMvc.perform(get(path).with(reader))
+                    .andExpect(status().isForbidden());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.gichungasoftwares.book_network.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Records every statement sent through the proxied datasource, across threads
+// (streamed responses and @Async work run outside the test thread)
+public class SqlStatementCounter implements QueryExecutionListener {
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        queryInfoList.forEach(queryInfo -> statements.add(queryInfo.getQuery()));
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    // runs the action and fails if it executed more than max statements
+    public void assertAtMost(int max, Action action) throws Exception {
+        reset();
+        action.run();
+        List<String> executed = statements();
+        assertThat(executed)
+                .as("expected at most %d statements but %d were executed:%n%s", max, executed.size(), String.join("\n", executed))
+                .hasSizeLessThanOrEqualTo(max);
+    }
+}
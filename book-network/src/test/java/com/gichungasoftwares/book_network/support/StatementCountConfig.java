@@ -0,0 +1,18 @@
+package com.gichungasoftwares.book_network.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+// Feeds the SqlStatementCounter from the datasource-proxy that datasource-micrometer already wraps
+// around the application datasource: every QueryExecutionListener bean is added to that proxy.
+// A second proxy of our own would see each statement twice, once per layer.
+@TestConfiguration
+public class StatementCountConfig {
+
+    private static final SqlStatementCounter COUNTER = new SqlStatementCounter();
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return COUNTER;
+    }
+}
@@ -0,0 +1,86 @@
+package com.gichungasoftwares.book_network.support;
+
+import com.gichungasoftwares.book_network.book.BookRequest;
+import com.gichungasoftwares.book_network.book.BookService;
+import com.gichungasoftwares.book_network.feedback.FeedbackRequest;
+import com.gichungasoftwares.book_network.feedback.FeedbackService;
+import com.gichungasoftwares.book_network.listing.BookListingProjector;
+import com.gichungasoftwares.book_network.role.RoleRepository;
+import com.gichungasoftwares.book_network.user.User;
+import com.gichungasoftwares.book_network.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Seeds data through the same services the controllers use, so counters and indexes stay consistent
+@TestComponent
+@RequiredArgsConstructor
+public class TestData {
+
+    public static final String PASSWORD = "password";
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final BookService bookService;
+    private final FeedbackService feedbackService;
+    private final BookListingProjector bookListingProjector;
+
+    public User user(String firstname) {
+        return userRepository.save(User.builder()
+                .firstname(firstname)
+                .lastname("Reader")
+                .email(firstname.toLowerCase() + "-" + UUID.randomUUID() + "@mail.com")
+                .password(passwordEncoder.encode(PASSWORD))
+                .isAccountLocked(false)
+                .isEnabled(true)
+                .roles(List.of(roleRepository.findByName("USER").orElseThrow()))
+                .build());
+    }
+
+    public Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    public Integer book(User owner, String title, String synopsis) {
+        return runAs(owner, auth -> bookService.save(
+                new BookRequest(null, title, "Author of " + title, "isbn-" + UUID.randomUUID(), synopsis, true),
+                auth
+        ));
+    }
+
+    public Integer feedback(User author, Integer bookId, double note) {
+        return runAs(author, auth -> feedbackService.save(new FeedbackRequest(note, "Feedback", bookId), auth));
+    }
+
+    public Integer borrow(User borrower, Integer bookId) {
+        return runAs(borrower, auth -> bookService.borrowBook(bookId, auth));
+    }
+
+    public Integer giveBack(User borrower, Integer bookId) {
+        return runAs(borrower, auth -> bookService.returnBorrowedBook(bookId, auth));
+    }
+
+    // the browse pages read book_listing, projected on a schedule the tests do not wait for
+    public void projectListings() {
+        bookListingProjector.project();
+    }
+
+    // auditing reads the creator from the security context
+    public <T> T runAs(User user, Function<Authentication, T> action) {
+        Authentication authentication = authentication(user);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            return action.apply(authentication);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.gichungasoftwares.book_network.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The exporter alone, fed by a tracer that exports every span as it ends
+class RotatingFileSpanExporterTest {
+
+    private static final long MAX_BYTES = 2_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    private Path folder;
+
+    @Test
+    void fullFilesAreRolledOverAndTheOldestDropped() throws IOException {
+        Path file = folder.resolve("spans.jsonl");
+
+        export(new RotatingFileSpanExporter(file, MAX_BYTES, 2, objectMapper), 0, 100);
+
+        assertThat(file.resolveSibling("spans.jsonl.1")).exists();
+        assertThat(file.resolveSibling("spans.jsonl.2")).exists();
+        assertThat(file.resolveSibling("spans.jsonl.3")).doesNotExist();
+        for (Path part : List.of(file, file.resolveSibling("spans.jsonl.1"), file.resolveSibling("spans.jsonl.2"))) {
+            assertThat(Files.size(part)).isLessThanOrEqualTo(MAX_BYTES);
+        }
+        // newest last in the current file, the older ones in file.1 then file.2, the first spans are gone
+        List<String> names = new ArrayList<>();
+        names.addAll(spanNames(file.resolveSibling("spans.jsonl.2")));
+        names.addAll(spanNames(file.resolveSibling("spans.jsonl.1")));
+        names.addAll(spanNames(file));
+        assertThat(names).last().isEqualTo("span-099");
+        assertThat(names).doesNotContain("span-000").isSorted();
+    }
+
+    @Test
+    void aRestartedExporterAppendsAndCountsTheExistingLines() throws IOException {
+        Path file = folder.resolve("spans.jsonl");
+        export(new RotatingFileSpanExporter(file, MAX_BYTES, 1, objectMapper), 0, 4);
+
+        export(new RotatingFileSpanExporter(file, MAX_BYTES, 1, objectMapper), 4, 4);
+        assertThat(spanNames(file)).startsWith("span-000").endsWith("span-007").hasSize(8);
+
+        // the lines written before the restart count towards the size of the file: four more spans do not fit
+        export(new RotatingFileSpanExporter(file, MAX_BYTES, 1, objectMapper), 8, 4);
+        List<String> names = new ArrayList<>(spanNames(file.resolveSibling("spans.jsonl.1")));
+        assertThat(names).startsWith("span-000");
+        names.addAll(spanNames(file));
+        assertThat(names).hasSize(12).isSorted().endsWith("span-011");
+    }
+
+    @Test
+    void withoutRolledFilesTheFullFileIsDropped() throws IOException {
+        Path file = folder.resolve("spans.jsonl");
+
+        export(new RotatingFileSpanExporter(file, MAX_BYTES, 0, objectMapper), 0, 50);
+
+        assertThat(file.resolveSibling("spans.jsonl.1")).doesNotExist();
+        assertThat(spanNames(file)).doesNotContain("span-000").endsWith("span-049");
+    }
+
+    // span names are zero padded so their order is the export order
+    private void export(RotatingFileSpanExporter exporter, int from, int count) {
+        try (SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build()) {
+            Tracer tracer = tracerProvider.get("test");
+            for (int i = from; i < from + count; i++) {
+                // a root span, sampled whatever context an earlier test left on the thread
+                tracer.spanBuilder("span-%03d".formatted(i)).setNoParent().startSpan().end();
+            }
+        }
+    }
+
+    private List<String> spanNames(Path file) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            JsonNode span = objectMapper.readTree(line);
+            assertThat(span.get("traceId").asText()).hasSize(32);
+            names.add(span.get("name").asText());
+        }
+        return names;
+    }
+}